@@ -0,0 +1,222 @@
+package io.github.lonevep.playerHealth;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Material;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.plugin.Plugin;
+
+// 基准测试使用的轻量替身 不需要启动服务器
+// Player/PlayerInventory/ItemMeta/PersistentDataContainer通过动态代理实现 只支持插件热路径用到的方法
+final class BenchmarkFixtures {
+    static final DebugLog DEBUG_OFF = new DebugLog(Logger.getLogger("PlayerHealth-bench"), false, false, 1);
+    static final String[] STAT_NAMES = {"生命", "护甲", "回复", "暴击", "攻击", "移速", "吸血", "闪避"};
+
+    private BenchmarkFixtures() {
+    }
+
+    static VariableRegistry compile(String yaml) {
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            config.loadFromString(yaml);
+        } catch (InvalidConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+        return new VariableCompiler(plugin(), DEBUG_OFF).compile(config);
+    }
+
+    static Messages messages() {
+        InputStream in = BenchmarkFixtures.class.getClassLoader().getResourceAsStream("message.yml");
+        if (in == null) throw new IllegalStateException("message.yml not found on classpath");
+        return new Messages(YamlConfiguration.loadConfiguration(new InputStreamReader(in, StandardCharsets.UTF_8)));
+    }
+
+    // 生成带有ranges个number/weight区间的normal变量
+    static String normalVariable(String name, int ranges) {
+        StringBuilder yaml = new StringBuilder(name).append(":\n  mode: normal\n  values:\n");
+        for (int i = 0; i < ranges; i++) {
+            yaml.append("    - \"number::").append(i * 10).append('_').append(i * 10 + 9).append("_2\"\n");
+            yaml.append("    - \"weight::").append(1.0 / ranges).append("\"\n");
+        }
+        return yaml.toString();
+    }
+
+    static String eliteVariable(String name, String prefix) {
+        return name + ":\n  mode: elite\n  prefix: \"" + prefix + "\"\n";
+    }
+
+    static String statPrefix(int index) {
+        return "§7" + STAT_NAMES[index % STAT_NAMES.length] + (index / STAT_NAMES.length == 0 ? "" : index / STAT_NAMES.length) + ": §b";
+    }
+
+    // 前statCount行为属性行 其余为描述文本 与常见RPG物品的lore结构一致
+    static List<Component> lore(int lines, int statCount) {
+        List<Component> lore = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            if (i < statCount) {
+                String label = STAT_NAMES[i % STAT_NAMES.length] + (i / STAT_NAMES.length == 0 ? "" : String.valueOf(i / STAT_NAMES.length));
+                lore.add(Component.text(label + ": ", NamedTextColor.GRAY).append(Component.text(String.valueOf(10 + i * 1.5), NamedTextColor.AQUA)));
+            } else {
+                lore.add(Component.text("这是一段用于测试的物品描述文本 第" + i + "行", NamedTextColor.DARK_GRAY));
+            }
+        }
+        return lore;
+    }
+
+    static StubItemStack item(List<Component> lore) {
+        return new StubItemStack(lore);
+    }
+
+    static StubPlayer player(String name) {
+        return new StubPlayer(name);
+    }
+
+    // 丢弃收到的消息的控制台
+    static CommandSender console() {
+        return (CommandSender) Proxy.newProxyInstance(CommandSender.class.getClassLoader(), new Class<?>[]{CommandSender.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "getName" -> "CONSOLE";
+            case "sendMessage" -> null;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "CONSOLE";
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private static Plugin plugin() {
+        return (Plugin) Proxy.newProxyInstance(Plugin.class.getClassLoader(), new Class<?>[]{Plugin.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "getName" -> "PlayerHealth";
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "PlayerHealth(benchmark)";
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    // 持有可切换物品的玩家替身
+    static final class StubPlayer {
+        private final String name;
+        private final UUID id = UUID.randomUUID();
+        private final Player proxy;
+        private ItemStack mainHand = new ItemStack(Material.AIR);
+        private double health = 20.0;
+
+        private StubPlayer(String name) {
+            this.name = name;
+            PlayerInventory inventory = (PlayerInventory) Proxy.newProxyInstance(PlayerInventory.class.getClassLoader(), new Class<?>[]{PlayerInventory.class}, (p, method, args) -> switch (method.getName()) {
+                case "getItemInMainHand" -> mainHand;
+                case "hashCode" -> System.identityHashCode(p);
+                case "equals" -> p == args[0];
+                case "toString" -> name + "#inventory";
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+            this.proxy = (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[]{Player.class}, (p, method, args) -> switch (method.getName()) {
+                case "getName" -> this.name;
+                case "getUniqueId" -> id;
+                case "getInventory" -> inventory;
+                case "getHealth" -> health;
+                case "setHealth" -> {
+                    health = (Double) args[0];
+                    yield null;
+                }
+                case "getAttribute" -> null;
+                case "isOnline" -> true;
+                case "sendMessage" -> null;
+                case "hashCode" -> id.hashCode();
+                case "equals" -> p == args[0];
+                case "toString" -> this.name;
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+        }
+
+        Player asPlayer() {
+            return proxy;
+        }
+
+        void hold(ItemStack item) {
+            this.mainHand = item;
+        }
+    }
+
+    // 不依赖ItemFactory的物品替身 lore不可变 meta在副本之间共享
+    static final class StubItemStack extends ItemStack {
+        private ItemMeta meta;
+
+        private StubItemStack(List<Component> lore) {
+            super(Material.DIAMOND_SWORD);
+            this.meta = meta(List.copyOf(lore), new HashMap<>());
+        }
+
+        private StubItemStack(ItemMeta meta) {
+            super(Material.DIAMOND_SWORD);
+            this.meta = meta;
+        }
+
+        @Override
+        public boolean hasItemMeta() {
+            return true;
+        }
+
+        @Override
+        public ItemMeta getItemMeta() {
+            return meta;
+        }
+
+        @Override
+        public boolean setItemMeta(ItemMeta itemMeta) {
+            this.meta = itemMeta;
+            return true;
+        }
+
+        @Override
+        public boolean isSimilar(ItemStack stack) {
+            return stack instanceof StubItemStack other && other.meta == meta;
+        }
+
+        @Override
+        public StubItemStack clone() {
+            return new StubItemStack(meta);
+        }
+
+        private static ItemMeta meta(List<Component> lore, Map<Object, Object> data) {
+            PersistentDataContainer container = (PersistentDataContainer) Proxy.newProxyInstance(PersistentDataContainer.class.getClassLoader(), new Class<?>[]{PersistentDataContainer.class}, (p, method, args) -> switch (method.getName()) {
+                case "get" -> data.get(args[0]);
+                case "has" -> data.containsKey(args[0]);
+                case "set" -> {
+                    data.put(args[0], args[2]);
+                    yield null;
+                }
+                case "hashCode" -> System.identityHashCode(p);
+                case "equals" -> p == args[0];
+                case "toString" -> data.toString();
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+            return (ItemMeta) Proxy.newProxyInstance(ItemMeta.class.getClassLoader(), new Class<?>[]{ItemMeta.class}, (p, method, args) -> switch (method.getName()) {
+                case "hasLore" -> !lore.isEmpty();
+                case "lore" -> args == null ? lore : null;
+                case "getPersistentDataContainer" -> container;
+                case "hashCode" -> System.identityHashCode(p);
+                case "equals" -> p == args[0];
+                case "toString" -> "ItemMeta" + lore;
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package io.github.lonevep.playerHealth;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+// 模拟"N名玩家 × 每tick M个占位符"的服务器负载 统计每tick在主线程上的耗时和分配字节数
+// 每个模拟tick依次执行: 部分玩家切换手持物品 解析所有玩家的占位符 执行give/set指令
+// 占位符与指令走插件的同一条路径(VariableResolver/HealthCommands) 玩家、物品和控制台使用BenchmarkFixtures中的替身
+// PlayerHealthExpansion和onCommand依赖JavaPlugin实例 无法脱离服务器创建 因此直接驱动它们委托的组件
+// 参数格式为key=value 例如: players=500 placeholders=20 commands=10 swap=5 ticks=2000
+public final class LoadSimulation {
+    private static final long TICK_BUDGET_NANOS = 50_000_000L;
+    private static final String[] VARIABLES = {"health", "armor", "regen", "crit", "damage", "rolled", "effective"};
+
+    private final int players;
+    private final int placeholders;
+    private final int commands;
+    private final int swapPercent;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final List<BenchmarkFixtures.StubPlayer> stubs = new ArrayList<>();
+    private final List<BenchmarkFixtures.StubItemStack> items = new ArrayList<>();
+    private final CommandSender console = BenchmarkFixtures.console();
+    private final VariableResolver resolver;
+    private final AuditLog auditLog;
+    private final HealthCommands healthCommands;
+
+    private LoadSimulation(int players, int placeholders, int commands, int swapPercent) throws IOException {
+        this.players = players;
+        this.placeholders = placeholders;
+        this.commands = commands;
+        this.swapPercent = swapPercent;
+
+        String yaml = BenchmarkFixtures.normalVariable("damage", 4)
+            + BenchmarkFixtures.eliteVariable("health", BenchmarkFixtures.statPrefix(0))
+            + BenchmarkFixtures.eliteVariable("armor", BenchmarkFixtures.statPrefix(1))
+            + BenchmarkFixtures.eliteVariable("regen", BenchmarkFixtures.statPrefix(2))
+            + BenchmarkFixtures.eliteVariable("crit", BenchmarkFixtures.statPrefix(3))
+            + "rolled:\n  mode: roll\n  values:\n    - \"number::1_100_1\"\n    - \"weight::1.0\"\n"
+            + "effective:\n  mode: expr\n  expression: \"health * (1 + armor / 100) + max(crit, 0)\"\n";
+        VariableRegistry registry = BenchmarkFixtures.compile(yaml);
+        resolver = new VariableResolver(BenchmarkFixtures.DEBUG_OFF, Metrics.DISABLED, new EliteLoreCache(), new EquipmentLoreCache(Long.MAX_VALUE),
+            RandomSource.seeded(42), () -> registry, p -> true);
+        auditLog = new AuditLog(Files.createTempDirectory("playerhealth-audit"), 1024 * 1024, 2, Logger.getLogger("PlayerHealth-sim"));
+        Messages messages = BenchmarkFixtures.messages();
+        healthCommands = new HealthCommands(() -> messages, auditLog, BenchmarkFixtures.DEBUG_OFF);
+
+        // 物品种类少于玩家数量 与多名玩家持有同款装备的情况一致
+        for (int i = 0; i < 32; i++) {
+            BenchmarkFixtures.StubItemStack item = BenchmarkFixtures.item(BenchmarkFixtures.lore(8 + i % 8, 4));
+            resolver.rollItem(item, "rolled");
+            items.add(item);
+        }
+        for (int i = 0; i < players; i++) {
+            BenchmarkFixtures.StubPlayer stub = BenchmarkFixtures.player("player" + i);
+            stub.hold(items.get(i % items.size()));
+            stubs.add(stub);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, Integer> options = new TreeMap<>(Map.of("players", 200, "placeholders", 20, "commands", 10, "swap", 5,
+            "ticks", 2000, "warmup", 500));
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (split <= 0 || !options.containsKey(arg.substring(0, split))) {
+                System.err.println("未知参数: " + arg + " 可用参数: " + options.keySet());
+                return;
+            }
+            options.put(arg.substring(0, split), Integer.parseInt(arg.substring(split + 1)));
+        }
+
+        LoadSimulation simulation = new LoadSimulation(options.get("players"), options.get("placeholders"),
+            options.get("commands"), options.get("swap"));
+        System.out.println("参数: " + options);
+        simulation.run(options.get("warmup"), null);
+        Result result = new Result();
+        simulation.run(options.get("ticks"), result);
+        result.print(options.get("players") * options.get("placeholders"), options.get("commands"));
+    }
+
+    private void run(int ticks, Result result) {
+        auditLog.start();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int tick = 0; tick < ticks; tick++) {
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            tick();
+            long elapsed = System.nanoTime() - start;
+            if (result != null) result.record(elapsed, threads.getCurrentThreadAllocatedBytes() - allocated);
+        }
+        auditLog.stop();
+    }
+
+    private void tick() {
+        int swaps = players * swapPercent / 100;
+        for (int i = 0; i < swaps; i++) {
+            stubs.get(random.nextInt(players)).hold(items.get(random.nextInt(items.size())));
+        }
+
+        int variable = 0;
+        for (BenchmarkFixtures.StubPlayer stub : stubs) {
+            Player player = stub.asPlayer();
+            for (int i = 0; i < placeholders; i++) {
+                resolver.resolve(player, VARIABLES[variable++ % VARIABLES.length]);
+            }
+        }
+
+        // 控制台对单个在线玩家执行give/set 不包括玩家名查找
+        for (int i = 0; i < commands; i++) {
+            Player target = stubs.get(random.nextInt(players)).asPlayer();
+            boolean give = random.nextBoolean();
+            double maxHealth = HealthService.maxHealth(target);
+            String subCommand = give ? "give" : "set";
+            double amount = healthCommands.parseAmount(console, subCommand, give ? "5" : String.valueOf(1 + random.nextInt((int) maxHealth)));
+            if (give) {
+                healthCommands.give(console, target, amount, maxHealth);
+            } else {
+                healthCommands.set(console, target, amount, maxHealth);
+            }
+        }
+    }
+
+    private static final class Result {
+        private final LatencyHistogram tickTime = new LatencyHistogram();
+        private long ticks;
+        private long totalNanos;
+        private long totalBytes;
+        private long maxBytes;
+        private long overBudget;
+
+        void record(long nanos, long bytes) {
+            tickTime.record(nanos);
+            ticks++;
+            totalNanos += nanos;
+            totalBytes += bytes;
+            maxBytes = Math.max(maxBytes, bytes);
+            if (nanos > TICK_BUDGET_NANOS) overBudget++;
+        }
+
+        void print(int placeholdersPerTick, int commandsPerTick) {
+            double meanNanos = (double) totalNanos / ticks;
+            System.out.println("模拟tick数: " + ticks + " 每tick占位符: " + placeholdersPerTick + " 每tick指令: " + commandsPerTick);
+            System.out.println("每tick耗时(分桶上界): 平均 " + DecimalFormatter.format(meanNanos / 1000.0, 1) + "µs p50 ≤"
+                + tickTime.percentileMicros(0.5) + "µs p99 ≤" + tickTime.percentileMicros(0.99) + "µs 最大 " + tickTime.maxMicros() + "µs");
+            System.out.println("占用50ms tick预算: 平均 " + DecimalFormatter.format(meanNanos * 100.0 / TICK_BUDGET_NANOS, 2)
+                + "% 超出预算的tick: " + overBudget);
+            System.out.println("每tick分配: 平均 " + totalBytes / ticks + " 字节 最大 " + maxBytes + " 字节");
+            if (placeholdersPerTick > 0) {
+                System.out.println("每个占位符(含指令均摊): " + DecimalFormatter.format(meanNanos / placeholdersPerTick, 1) + "ns "
+                    + DecimalFormatter.format((double) totalBytes / ticks / placeholdersPerTick, 1) + " 字节");
+            }
+        }
+    }
+}
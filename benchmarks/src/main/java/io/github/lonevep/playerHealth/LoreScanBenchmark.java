@@ -0,0 +1,53 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.concurrent.TimeUnit;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// 精英变量lore提取(不经过缓存) lore行数与精英变量数量可调
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoreScanBenchmark {
+    @Param({"5", "20", "60"})
+    public int loreLines;
+
+    @Param({"1", "8"})
+    public int eliteVariables;
+
+    private VariableResolver resolver;
+    private LorePrefixScanner scanner;
+    private Player player;
+    private BenchmarkFixtures.StubItemStack item;
+
+    @Setup
+    public void setup() {
+        StringBuilder yaml = new StringBuilder();
+        for (int i = 0; i < eliteVariables; i++) {
+            yaml.append(BenchmarkFixtures.eliteVariable("stat" + i, BenchmarkFixtures.statPrefix(i)));
+        }
+        VariableRegistry registry = BenchmarkFixtures.compile(yaml.toString());
+        scanner = registry.eliteScanner();
+        resolver = new VariableResolver(BenchmarkFixtures.DEBUG_OFF, Metrics.DISABLED, new EliteLoreCache(), new EquipmentLoreCache(Long.MAX_VALUE), RandomSource.UNSEEDED, () -> registry, p -> true);
+        player = BenchmarkFixtures.player("bench").asPlayer();
+        item = BenchmarkFixtures.item(BenchmarkFixtures.lore(loreLines, Math.min(eliteVariables, loreLines)));
+    }
+
+    @Benchmark
+    public String[] scanAllPrefixes() {
+        return resolver.scanEliteVariables(player, item, scanner);
+    }
+}
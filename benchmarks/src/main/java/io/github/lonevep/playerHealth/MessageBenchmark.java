@@ -0,0 +1,63 @@
+package io.github.lonevep.playerHealth;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.command.CommandSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// message.yml消息模板发送 与give/set指令发送反馈时的调用方式一致(静态消息直接发送缓存的Component)
+// 执行者替身保存最后一次收到的消息 作为返回值避免发送被优化掉
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+    private Messages messages;
+    private CommandSender sender;
+    private Object lastMessage;
+
+    @Setup
+    public void setup() {
+        messages = BenchmarkFixtures.messages();
+        sender = (CommandSender) Proxy.newProxyInstance(CommandSender.class.getClassLoader(), new Class<?>[]{CommandSender.class}, (p, method, args) -> switch (method.getName()) {
+            case "sendMessage" -> {
+                lastMessage = args[0];
+                yield null;
+            }
+            case "getName" -> "CONSOLE";
+            case "hashCode" -> System.identityHashCode(p);
+            case "equals" -> p == args[0];
+            case "toString" -> "CONSOLE";
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    @Benchmark
+    public Object giveReceive() {
+        messages.send(sender, MessageKey.GIVE_RECEIVE, "5", "17", "20");
+        return lastMessage;
+    }
+
+    @Benchmark
+    public Object staticMessage() {
+        messages.send(sender, MessageKey.RELOAD_SUCCESS);
+        return lastMessage;
+    }
+
+    @Benchmark
+    public Object usage() {
+        messages.send(sender, MessageKey.USAGE_PH);
+        return lastMessage;
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.concurrent.TimeUnit;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// normal变量的随机抽取与格式化 权重区间数量可调 多线程用于观察随机数源竞争
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SamplingBenchmark {
+    @Param({"1", "8", "64"})
+    public int ranges;
+
+    private VariableResolver resolver;
+    private VariableDefinition definition;
+    private Player player;
+
+    @Setup
+    public void setup() {
+        VariableRegistry registry = BenchmarkFixtures.compile(BenchmarkFixtures.normalVariable("sampled", ranges));
+        definition = registry.get("sampled");
+        resolver = new VariableResolver(BenchmarkFixtures.DEBUG_OFF, Metrics.DISABLED, new EliteLoreCache(), new EquipmentLoreCache(Long.MAX_VALUE), RandomSource.UNSEEDED, () -> registry, p -> true);
+        player = BenchmarkFixtures.player("bench").asPlayer();
+    }
+
+    @Benchmark
+    public String generate() {
+        return resolver.generateRandomValue(definition, player);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateContended() {
+        return resolver.generateRandomValue(definition, player);
+    }
+
+    @Benchmark
+    public String formatOnly() {
+        return DecimalFormatter.format(12.345678, 2);
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.concurrent.TimeUnit;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// getNumberVar在各模式下的吞吐量 对应%ph_var_*%占位符的一次解析
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VariableBenchmark {
+    private VariableResolver resolver;
+    private BenchmarkFixtures.StubPlayer stubPlayer;
+    private Player player;
+    private BenchmarkFixtures.StubItemStack sword;
+    private BenchmarkFixtures.StubItemStack otherSword;
+    private boolean swap;
+
+    @Setup
+    public void setup() {
+        String yaml = BenchmarkFixtures.normalVariable("damage", 4)
+            + BenchmarkFixtures.eliteVariable("health", BenchmarkFixtures.statPrefix(0))
+            + BenchmarkFixtures.eliteVariable("armor", BenchmarkFixtures.statPrefix(1))
+            + "rolled:\n  mode: roll\n  values:\n    - \"number::1_100_1\"\n    - \"weight::1.0\"\n";
+        VariableRegistry registry = BenchmarkFixtures.compile(yaml);
+        resolver = new VariableResolver(BenchmarkFixtures.DEBUG_OFF, Metrics.DISABLED, new EliteLoreCache(), new EquipmentLoreCache(Long.MAX_VALUE), RandomSource.UNSEEDED, () -> registry, p -> true);
+        stubPlayer = BenchmarkFixtures.player("bench");
+        player = stubPlayer.asPlayer();
+        sword = BenchmarkFixtures.item(BenchmarkFixtures.lore(12, 4));
+        otherSword = BenchmarkFixtures.item(BenchmarkFixtures.lore(12, 4));
+        stubPlayer.hold(sword);
+        resolver.rollItem(sword, "rolled");
+    }
+
+    @Benchmark
+    public String normal() {
+        return resolver.resolve(player, "damage");
+    }
+
+    // 手持物品未变化 命中精英缓存
+    @Benchmark
+    public String eliteCached() {
+        return resolver.resolve(player, "health");
+    }
+
+    // 每次调用都切换手持物品 每次都重新扫描lore
+    @Benchmark
+    public String eliteItemChanged() {
+        swap = !swap;
+        stubPlayer.hold(swap ? otherSword : sword);
+        return resolver.resolve(player, "armor");
+    }
+
+    @Benchmark
+    public String rollStored() {
+        stubPlayer.hold(sword);
+        return resolver.resolve(player, "rolled");
+    }
+
+    @Benchmark
+    public String unknownVariable() {
+        return resolver.resolve(player, "missing");
+    }
+}
@@ -0,0 +1,215 @@
+package io.github.lonevep.playerHealth;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// give/set指令的审计日志 主线程只把记录放入无锁队列 由后台线程定期批量追加到文件
+// 每条记录一行: 时间戳(毫秒)\t操作\t执行者\t目标\t修改前\t修改后
+// 当前文件为audit.log 超过maxFileSize后依次轮转为audit.1.log audit.2.log... 最多保留maxFiles个文件
+final class AuditLog implements Runnable {
+    private static final String CURRENT = "audit.log";
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int READ_CHUNK_SIZE = 8 * 1024;
+
+    record Entry(long time, boolean give, String sender, String target, double before, double after) {
+        String toLine() {
+            return time + "\t" + (give ? "give" : "set") + "\t" + sender + "\t" + target + "\t"
+                + DecimalFormatter.format(before, 2) + "\t" + DecimalFormatter.format(after, 2) + "\n";
+        }
+
+        // 格式不正确(如写入中途被读取的半行)时返回null
+        static Entry parse(String line) {
+            String[] parts = line.split("\t");
+            if (parts.length != 6) return null;
+            try {
+                return new Entry(Long.parseLong(parts[0]), parts[1].equals("give"), parts[2], parts[3],
+                    Double.parseDouble(parts[4]), Double.parseDouble(parts[5]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        boolean involves(String name) {
+            return name == null || sender.equalsIgnoreCase(name) || target.equalsIgnoreCase(name);
+        }
+    }
+
+    private final Path folder;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private final Logger logger;
+    private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    private volatile boolean running;
+    private Thread thread;
+    private FileChannel channel;
+    private long fileSize;
+
+    AuditLog(Path folder, long maxFileSize, int maxFiles, Logger logger) {
+        this.folder = folder;
+        this.maxFileSize = Math.max(maxFileSize, WRITE_BUFFER_SIZE);
+        this.maxFiles = Math.max(maxFiles, 1);
+        this.logger = logger;
+    }
+
+    void start() {
+        running = true;
+        thread = new Thread(this, "PlayerHealth-AuditWriter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // 等待后台线程写完队列中剩余的记录
+    void stop() {
+        if (thread == null) return;
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 任意线程调用 不进行任何IO
+    void record(Entry entry) {
+        queue.offer(entry);
+    }
+
+    @Override
+    public void run() {
+        while (running || !queue.isEmpty()) {
+            drain();
+            if (running) LockSupport.parkNanos(this, FLUSH_INTERVAL_NANOS);
+        }
+        closeChannel();
+    }
+
+    private void drain() {
+        try {
+            Entry entry;
+            while ((entry = queue.poll()) != null) {
+                byte[] line = entry.toLine().getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < line.length) flush();
+                buffer.put(line);
+            }
+            flush();
+        } catch (IOException e) {
+            // 丢弃本批记录 下次写入时重新打开文件
+            buffer.clear();
+            closeChannel();
+            logger.log(Level.WARNING, "审计日志写入失败", e);
+        }
+    }
+
+    private void flush() throws IOException {
+        if (buffer.position() == 0) return;
+        if (channel == null) openChannel();
+        if (fileSize > 0 && fileSize + buffer.position() > maxFileSize) rotate();
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            fileSize += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void openChannel() throws IOException {
+        Files.createDirectories(folder);
+        channel = FileChannel.open(folder.resolve(CURRENT), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileSize = channel.size();
+    }
+
+    private void rotate() throws IOException {
+        closeChannel();
+        Files.deleteIfExists(file(maxFiles - 1));
+        for (int i = maxFiles - 2; i >= 0; i--) {
+            Path source = file(i);
+            if (Files.exists(source)) Files.move(source, file(i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        openChannel();
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignore) {
+            // 关闭时的异常无需处理
+        }
+        channel = null;
+    }
+
+    private Path file(int index) {
+        return folder.resolve(index == 0 ? CURRENT : "audit." + index + ".log");
+    }
+
+    // 从最新的文件开始从后往前分块读取 返回与name相关(name为null时不过滤)的最近limit条记录 最新的在前
+    // 只读取到凑够limit条为止 不会把整个文件载入内存 可在异步线程调用
+    List<Entry> recent(String name, int limit) {
+        List<Entry> result = new ArrayList<>();
+        for (int i = 0; i < maxFiles && result.size() < limit; i++) {
+            try {
+                scanBackwards(file(i), name, limit, result);
+            } catch (NoSuchFileException ignore) {
+                // 文件不存在或正在轮转
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "审计日志读取失败: " + file(i), e);
+            }
+        }
+        return result;
+    }
+
+    private static void scanBackwards(Path file, String name, int limit, List<Entry> result) throws IOException {
+        try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer chunk = ByteBuffer.allocate(READ_CHUNK_SIZE);
+            long position = reader.size();
+            // 上一块开头不完整的行
+            byte[] carry = new byte[0];
+            while (position > 0) {
+                int size = (int) Math.min(READ_CHUNK_SIZE, position);
+                position -= size;
+                chunk.clear().limit(size);
+                while (chunk.hasRemaining()) {
+                    if (reader.read(chunk, position + chunk.position()) < 0) break;
+                }
+
+                byte[] block = Arrays.copyOf(chunk.array(), chunk.position() + carry.length);
+                System.arraycopy(carry, 0, block, chunk.position(), carry.length);
+                int end = block.length;
+                for (int i = block.length - 1; i >= 0; i--) {
+                    if (block[i] != '\n') continue;
+                    if (collect(block, i + 1, end, name, limit, result)) return;
+                    end = i;
+                }
+                carry = Arrays.copyOf(block, end);
+            }
+            collect(carry, 0, carry.length, name, limit, result);
+        }
+    }
+
+    // 返回是否已凑够limit条
+    private static boolean collect(byte[] block, int start, int end, String name, int limit, List<Entry> result) {
+        if (end > start) {
+            Entry entry = Entry.parse(new String(block, start, end - start, StandardCharsets.UTF_8));
+            if (entry != null && entry.involves(name)) result.add(entry);
+        }
+        return result.size() >= limit;
+    }
+}
@@ -0,0 +1,7 @@
+package io.github.lonevep.playerHealth;
+
+// message.yml和variable.yml的一次完整加载结果 重载时通过一次volatile写入整体替换
+// variableNames为已编译变量的名称索引 供parse指令的Tab补全使用
+record ConfigSnapshot(Messages messages, VariableRegistry registry, PrefixIndex variableNames) {
+    static final ConfigSnapshot EMPTY = new ConfigSnapshot(Messages.EMPTY, VariableRegistry.EMPTY, PrefixIndex.EMPTY);
+}
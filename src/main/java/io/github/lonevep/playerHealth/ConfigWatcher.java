@@ -0,0 +1,83 @@
+package io.github.lonevep.playerHealth;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// 监听数据文件夹中的配置文件变化 在最后一次变化后静默debounceMillis毫秒再触发重载
+final class ConfigWatcher implements Runnable {
+    private final Path folder;
+    private final Set<String> fileNames;
+    private final long debounceMillis;
+    private final Runnable onChange;
+    private final Logger logger;
+    private WatchService watchService;
+    private Thread thread;
+
+    ConfigWatcher(Path folder, Set<String> fileNames, long debounceMillis, Runnable onChange, Logger logger) {
+        this.folder = folder;
+        this.fileNames = fileNames;
+        this.debounceMillis = Math.max(debounceMillis, 0);
+        this.onChange = onChange;
+        this.logger = logger;
+    }
+
+    void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(this, "PlayerHealth-ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        if (watchService == null) return;
+        try {
+            watchService.close();
+        } catch (IOException ignore) {
+            // 关闭时的异常无需处理
+        }
+        thread.interrupt();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = drain(key);
+                // 编辑器保存时会连续产生多个事件 等待事件停止后只重载一次
+                while (true) {
+                    WatchKey next = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                    if (next == null) break;
+                    changed |= drain(next);
+                }
+                if (changed) onChange.run();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 插件关闭
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "配置文件监听异常，自动重载已停止", e);
+        }
+    }
+
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path path && fileNames.contains(path.getFileName().toString())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.command.CommandSender;
+
+// 调试输出与内存跟踪缓冲区 调试和跟踪都关闭时不构建任何消息
+final class DebugLog {
+    private final Logger logger;
+    private final int traceBufferSize;
+    private volatile boolean enabled;
+    private volatile TraceBuffer traceBuffer;
+
+    DebugLog(Logger logger, boolean enabled, boolean trace, int traceBufferSize) {
+        this.logger = logger;
+        this.enabled = enabled;
+        this.traceBufferSize = Math.max(traceBufferSize, 1);
+        this.traceBuffer = trace ? new TraceBuffer(this.traceBufferSize) : null;
+    }
+
+    void log(CommandSender sender, String msg) {
+        TraceBuffer trace = traceBuffer;
+        if (!enabled && trace == null) return;
+        emit(sender, msg, trace);
+    }
+
+    // 仅在调试或跟踪开启时才构建消息 关闭时调用方不产生字符串拼接开销
+    void log(CommandSender sender, Supplier<String> msg) {
+        TraceBuffer trace = traceBuffer;
+        if (!enabled && trace == null) return;
+        emit(sender, msg.get(), trace);
+    }
+
+    TraceBuffer traceBuffer() {
+        return traceBuffer;
+    }
+
+    void enableTrace() {
+        if (traceBuffer == null) traceBuffer = new TraceBuffer(traceBufferSize);
+    }
+
+    void disableTrace() {
+        traceBuffer = null;
+    }
+
+    private void emit(CommandSender sender, String msg, TraceBuffer trace) {
+        if (trace != null) trace.add(msg);
+        if (!enabled) return;
+        if (sender != null) {
+            sender.sendMessage(LegacyComponentSerializer.legacySection().serialize(LegacyComponentSerializer.legacySection().deserialize("§e[DEBUG] " + msg)));
+        } else {
+            logger.info("[DEBUG] " + LegacyComponentSerializer.legacySection().serialize(LegacyComponentSerializer.legacySection().deserialize(msg)));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.lonevep.playerHealth;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// 固定小数位格式化 替代String.format 不受服务器Locale影响(始终使用'.'作为小数点)
+// 与String.format相同 按Double.toString的十进制表示四舍五入(1.005保留2位为1.01) 不按二进制的精确值
+final class DecimalFormatter {
+    private static final int MAX_DECIMALS = 9;
+    private static final int CACHED_INTEGERS = 1024;
+    // 超过该值时乘以10^n可能丢失精度 交给BigDecimal处理
+    private static final double MAX_FAST_VALUE = 1e15;
+    private static final long[] POW10 = new long[MAX_DECIMALS + 1];
+    private static final String[] SMALL_INTEGERS = new String[CACHED_INTEGERS];
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(32));
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+        for (int i = 0; i < SMALL_INTEGERS.length; i++) {
+            SMALL_INTEGERS[i] = Integer.toString(i);
+        }
+    }
+
+    private DecimalFormatter() {
+    }
+
+    static String format(double value, int decimals) {
+        if (decimals < 0) decimals = 0;
+        if (decimals > MAX_DECIMALS || Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) * POW10[decimals] >= MAX_FAST_VALUE) {
+            return formatSlow(value, decimals);
+        }
+
+        long pow = POW10[decimals];
+        double exact = Math.abs(value) * pow;
+        if (nearTie(exact)) return formatSlow(value, decimals);
+        long scaled = Math.round(exact);
+        boolean negative = value < 0 && scaled != 0;
+        long integerPart = scaled / pow;
+        long fraction = scaled % pow;
+
+        if (decimals == 0 && !negative && integerPart < CACHED_INTEGERS) {
+            return SMALL_INTEGERS[(int) integerPart];
+        }
+
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        if (negative) sb.append('-');
+        sb.append(integerPart);
+        if (decimals > 0) {
+            sb.append('.');
+            for (long p = pow / 10; p > 0 && fraction < p; p /= 10) {
+                sb.append('0');
+            }
+            if (fraction > 0) sb.append(fraction);
+        }
+        return sb.toString();
+    }
+
+    // 与format的舍入方式一致 返回数值而不是字符串
+    static double round(double value, int decimals) {
+        if (decimals < 0) decimals = 0;
+        if (decimals > MAX_DECIMALS || Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) * POW10[decimals] >= MAX_FAST_VALUE) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) return value;
+            return BigDecimal.valueOf(value).setScale(decimals, RoundingMode.HALF_UP).doubleValue();
+        }
+        long pow = POW10[decimals];
+        double exact = Math.abs(value) * pow;
+        if (nearTie(exact)) return BigDecimal.valueOf(value).setScale(decimals, RoundingMode.HALF_UP).doubleValue();
+        double rounded = Math.round(exact) / (double) pow;
+        return value < 0 ? -rounded : rounded;
+    }
+
+    // 小数部分接近0.5时乘法的二进制误差可能改变舍入方向 交给BigDecimal按十进制表示舍入
+    private static boolean nearTie(double scaled) {
+        return Math.abs(scaled - Math.floor(scaled) - 0.5) <= 4 * Math.ulp(scaled);
+    }
+
+    private static String formatSlow(double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) return Double.toString(value);
+        return BigDecimal.valueOf(value).setScale(decimals, RoundingMode.HALF_UP).toPlainString();
+    }
+}
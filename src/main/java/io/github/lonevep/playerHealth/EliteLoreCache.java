@@ -0,0 +1,81 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.ItemStack;
+
+// 缓存玩家手持物品的精英变量扫描结果 物品未变化时跳过lore序列化
+// 每个玩家保存一份物品副本 通过isSimilar比较判断物品是否变化
+// 缓存项只在玩家所在的线程创建和比较(普通Paper上即主线程) 异步线程只读取已发布的扫描结果
+// 每名在线玩家一项 退出时移除 数量不超过在线玩家数
+final class EliteLoreCache implements Listener {
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    // 被异步线程查询过的玩家 由玩家所在的线程定时刷新其手持物品快照
+    private final Set<UUID> asyncReaders = ConcurrentHashMap.newKeySet();
+    // 返回与当前手持物品对应的缓存项 物品变化时旧结果全部失效
+    Entry entry(Player player, ItemStack item) {
+        UUID id = player.getUniqueId();
+        Entry entry = entries.get(id);
+        if (entry != null && entry.item.isSimilar(item)) return entry;
+
+        entry = new Entry(item.clone());
+        entries.put(id, entry);
+        return entry;
+    }
+
+    // 异步线程读取主线程最近一次发布的快照 不访问玩家背包
+    String[] snapshot(UUID id, LorePrefixScanner scanner) {
+        asyncReaders.add(id);
+        Entry entry = entries.get(id);
+        return entry == null ? null : entry.results(scanner);
+    }
+
+    // 异步线程读取主线程最近一次保存的手持物品副本
+    ItemStack heldItemSnapshot(UUID id) {
+        asyncReaders.add(id);
+        Entry entry = entries.get(id);
+        return entry == null ? null : entry.item;
+    }
+
+    Set<UUID> asyncReaders() {
+        return asyncReaders;
+    }
+
+    void invalidate(UUID id) {
+        entries.remove(id);
+        asyncReaders.remove(id);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        invalidate(event.getPlayer().getUniqueId());
+    }
+
+    static final class Entry {
+        private final ItemStack item;
+        private volatile ScanResult scanned;
+
+        private Entry(ItemStack item) {
+            this.item = item;
+        }
+
+        // 重载后扫描器变化 旧的扫描结果不再使用
+        String[] results(LorePrefixScanner scanner) {
+            ScanResult result = scanned;
+            return result != null && result.scanner() == scanner ? result.values() : null;
+        }
+
+        void store(LorePrefixScanner scanner, String[] values) {
+            scanned = new ScanResult(scanner, values);
+        }
+    }
+
+    private record ScanResult(LorePrefixScanner scanner, String[] values) {}
+}
@@ -0,0 +1,233 @@
+package io.github.lonevep.playerHealth;
+
+import com.destroystokyo.paper.event.player.PlayerArmorChangeEvent;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerItemBreakEvent;
+import org.bukkit.event.player.PlayerItemConsumeEvent;
+import org.bukkit.event.player.PlayerItemHeldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerSwapHandItemsEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+// equip模式变量的装备栏扫描缓存 每个玩家按装备栏保存物品副本和lore扫描结果
+// 装备变化事件只把对应的装备栏标记为待检查 解析时仅重新扫描这些装备栏中确实变化的物品
+// 任一装备栏变化后重新计算所有equip变量的合计值并整体发布 异步线程只读取已发布的合计值
+// 其他插件直接修改物品时不会触发事件 每隔revalidateNanos纳秒整体检查一次
+final class EquipmentLoreCache implements Listener {
+    // 与slots配置中的名称一致
+    static final EquipmentSlot[] SLOTS = {
+        EquipmentSlot.HAND, EquipmentSlot.OFF_HAND, EquipmentSlot.HEAD, EquipmentSlot.CHEST, EquipmentSlot.LEGS, EquipmentSlot.FEET
+    };
+    static final int ALL_SLOTS = (1 << SLOTS.length) - 1;
+    private static final int HANDS = slotBit(EquipmentSlot.HAND) | slotBit(EquipmentSlot.OFF_HAND);
+    // 背包点击等事件在物品实际变化之前触发 标记后一个tick内保持待检查状态
+    private static final long PENDING_NANOS = 50_000_000L;
+
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    // 被异步线程查询过的玩家 由玩家所在的线程定时刷新其合计值
+    private final Set<UUID> asyncReaders = ConcurrentHashMap.newKeySet();
+    private final long revalidateNanos;
+
+    EquipmentLoreCache(long revalidateNanos) {
+        this.revalidateNanos = revalidateNanos;
+    }
+
+    static int slotBit(EquipmentSlot slot) {
+        for (int i = 0; i < SLOTS.length; i++) {
+            if (SLOTS[i] == slot) return 1 << i;
+        }
+        return 0;
+    }
+
+    // 无效名称返回0
+    static int slotBit(String name) {
+        for (int i = 0; i < SLOTS.length; i++) {
+            if (SLOTS[i].name().equalsIgnoreCase(name)) return 1 << i;
+        }
+        return 0;
+    }
+
+    // 仅在玩家所在的线程调用 scan对单个物品进行lore扫描 返回与registry对应的最新合计值
+    Totals totals(Player player, VariableRegistry registry, Function<ItemStack, String[]> scan) {
+        Entry entry = entries.computeIfAbsent(player.getUniqueId(), id -> new Entry());
+        Totals current = entry.totals;
+        long now = System.nanoTime();
+        int dirty = entry.dirty;
+        boolean changed = false;
+        if (current == null || current.registry() != registry) {
+            // 重载后扫描器变化 旧的扫描结果不再使用
+            entry.clear();
+            dirty = ALL_SLOTS;
+            changed = true;
+        } else if (now - entry.validatedAt >= revalidateNanos) {
+            dirty = ALL_SLOTS;
+        }
+        if (dirty == 0) return current;
+
+        PlayerInventory inventory = player.getInventory();
+        for (int i = 0; i < SLOTS.length; i++) {
+            if ((dirty & 1 << i) == 0) continue;
+            ItemStack item = inventory.getItem(SLOTS[i]);
+            if (item == null || item.getType().isAir()) {
+                if (entry.items[i] == null) continue;
+                entry.items[i] = null;
+                entry.results[i] = null;
+            } else {
+                if (entry.items[i] != null && entry.items[i].isSimilar(item)) continue;
+                entry.items[i] = item.clone();
+                entry.results[i] = scan.apply(item);
+            }
+            changed = true;
+        }
+        entry.dirty = now - entry.markedAt < PENDING_NANOS ? entry.dirty : 0;
+        if (dirty == ALL_SLOTS) entry.validatedAt = now;
+        if (changed) entry.totals = compute(registry, entry.results);
+        return entry.totals;
+    }
+
+    // 异步线程读取主线程最近一次发布的合计值 不访问玩家背包
+    Totals published(UUID id) {
+        asyncReaders.add(id);
+        Entry entry = entries.get(id);
+        return entry == null ? null : entry.totals;
+    }
+
+    Set<UUID> asyncReaders() {
+        return asyncReaders;
+    }
+
+    void invalidate(UUID id) {
+        entries.remove(id);
+        asyncReaders.remove(id);
+    }
+
+    private void markDirty(HumanEntity entity, int slots) {
+        Entry entry = entries.get(entity.getUniqueId());
+        if (entry == null) return;
+        entry.dirty |= slots;
+        entry.markedAt = System.nanoTime();
+    }
+
+    private static Totals compute(VariableRegistry registry, String[][] results) {
+        List<VariableDefinition> variables = registry.equipVariables();
+        double[] values = new double[variables.size()];
+        int[] decimals = new int[variables.size()];
+        for (VariableDefinition definition : variables) {
+            VariableDefinition.Aggregate aggregate = definition.aggregate();
+            double total = Double.NaN;
+            int scale = 0;
+            for (int i = 0; i < SLOTS.length && definition.prefixIndex() >= 0; i++) {
+                if ((aggregate.slots() & 1 << i) == 0 || results[i] == null) continue;
+                String number = results[i][definition.prefixIndex()];
+                if (number == null) continue;
+                double value = Double.parseDouble(number);
+                total = Double.isNaN(total) ? value : aggregate.combine().apply(total, value);
+                int dot = number.indexOf('.');
+                if (dot >= 0) scale = Math.max(scale, number.length() - dot - 1);
+            }
+            values[aggregate.index()] = total;
+            decimals[aggregate.index()] = scale;
+        }
+        return new Totals(registry, values, decimals);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onArmorChange(PlayerArmorChangeEvent event) {
+        markDirty(event.getPlayer(), slotBit(event.getSlotType().name()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onItemHeld(PlayerItemHeldEvent event) {
+        markDirty(event.getPlayer(), slotBit(EquipmentSlot.HAND));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onSwapHands(PlayerSwapHandItemsEvent event) {
+        markDirty(event.getPlayer(), HANDS);
+    }
+
+    // 盔甲栏的变化由PlayerArmorChangeEvent处理 背包操作只可能影响主手和副手
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryClick(InventoryClickEvent event) {
+        markDirty(event.getWhoClicked(), HANDS);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryDrag(InventoryDragEvent event) {
+        markDirty(event.getWhoClicked(), HANDS);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDrop(PlayerDropItemEvent event) {
+        markDirty(event.getPlayer(), HANDS);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPickup(EntityPickupItemEvent event) {
+        if (event.getEntity() instanceof Player player) markDirty(player, HANDS);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        markDirty(event.getPlayer(), HANDS);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onConsume(PlayerItemConsumeEvent event) {
+        markDirty(event.getPlayer(), HANDS);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onItemBreak(PlayerItemBreakEvent event) {
+        markDirty(event.getPlayer(), HANDS);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(PlayerRespawnEvent event) {
+        markDirty(event.getPlayer(), ALL_SLOTS);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        invalidate(event.getPlayer().getUniqueId());
+    }
+
+    // values按Aggregate.index存放 没有任何装备栏匹配前缀时为NaN decimals为参与计算的数字中最多的小数位数
+    record Totals(VariableRegistry registry, double[] values, int[] decimals) {
+    }
+
+    // items/results/dirty只在玩家所在的线程访问
+    private static final class Entry {
+        private final ItemStack[] items = new ItemStack[SLOTS.length];
+        private final String[][] results = new String[SLOTS.length][];
+        private int dirty = ALL_SLOTS;
+        private long validatedAt;
+        private long markedAt;
+        private volatile Totals totals;
+
+        void clear() {
+            for (int i = 0; i < SLOTS.length; i++) {
+                items[i] = null;
+                results[i] = null;
+            }
+        }
+    }
+}
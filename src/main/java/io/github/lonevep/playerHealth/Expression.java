@@ -0,0 +1,234 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+import org.bukkit.attribute.Attribute;
+import org.bukkit.attribute.AttributeInstance;
+import org.bukkit.entity.Player;
+
+// expr模式变量编译后的求值树 加载时已完成引用解析和常量折叠 求值时只遍历节点
+// 被引用的expr变量已内联(按其decimals舍入) 其他变量按首次出现顺序分配槽位 同一次求值中只解析一次
+final class Expression {
+    private final Node root;
+    private final String[] variables;
+    private final int decimals;
+    private final String source;
+    private final Set<Attribute> attributes;
+    private final boolean readsPlayer;
+
+    Expression(Node root, String[] variables, int decimals, String source) {
+        this.root = root;
+        this.variables = variables;
+        this.decimals = decimals;
+        this.source = source;
+        Set<Attribute> used = new HashSet<>();
+        this.readsPlayer = collectPlayerReads(root, used);
+        this.attributes = Set.copyOf(used);
+    }
+
+    // 把读取的属性加入out 读取了生命值、等级、饱食度或属性时返回true
+    private static boolean collectPlayerReads(Node node, Set<Attribute> out) {
+        if (node instanceof PlayerValue) return true;
+        if (node instanceof AttributeValue value) {
+            out.add(value.attribute());
+            return true;
+        }
+        if (node instanceof Negate negate) return collectPlayerReads(negate.operand(), out);
+        if (node instanceof Round round) return collectPlayerReads(round.operand(), out);
+        if (node instanceof Binary binary) return collectPlayerReads(binary.left(), out) | collectPlayerReads(binary.right(), out);
+        if (node instanceof Call call) {
+            boolean reads = false;
+            for (Node arg : call.args()) reads |= collectPlayerReads(arg, out);
+            return reads;
+        }
+        return false;
+    }
+
+    int decimals() {
+        return decimals;
+    }
+
+    // variable.yml中的原始表达式 用于写入编译缓存
+    String source() {
+        return source;
+    }
+
+    // 求值时读取的玩家属性 用于保存玩家状态快照
+    Set<Attribute> attributes() {
+        return attributes;
+    }
+
+    // 只引用其他变量的表达式不需要玩家状态快照
+    boolean readsPlayer() {
+        return readsPlayer;
+    }
+
+    // state为null时直接读取玩家 只能在玩家所在的线程调用
+    // 否则读取玩家所在线程保存的快照 快照中没有的值返回NaN
+    double evaluate(Player player, PlayerStateCache.State state, ToDoubleFunction<String> variable) {
+        return root.eval(new Context(player, state, variables, variable));
+    }
+
+    static final class Context {
+        private final Player player;
+        private final PlayerStateCache.State state;
+        private final String[] names;
+        private final ToDoubleFunction<String> variable;
+        private final double[] values;
+        private final boolean[] resolved;
+
+        private Context(Player player, PlayerStateCache.State state, String[] names, ToDoubleFunction<String> variable) {
+            this.player = player;
+            this.state = state;
+            this.names = names;
+            this.variable = variable;
+            this.values = names.length == 0 ? null : new double[names.length];
+            this.resolved = names.length == 0 ? null : new boolean[names.length];
+        }
+
+        double variable(int slot) {
+            if (!resolved[slot]) {
+                values[slot] = variable.applyAsDouble(names[slot]);
+                resolved[slot] = true;
+            }
+            return values[slot];
+        }
+    }
+
+    sealed interface Node permits Const, Ident, VariableRef, PlayerValue, AttributeValue, Negate, Binary, Call, Round {
+        double eval(Context ctx);
+    }
+
+    record Const(double value) implements Node {
+        public double eval(Context ctx) {
+            return value;
+        }
+    }
+
+    // 仅存在于解析阶段 编译时替换为具体的引用节点
+    record Ident(String name) implements Node {
+        public double eval(Context ctx) {
+            throw new IllegalStateException("unresolved identifier " + name);
+        }
+    }
+
+    record VariableRef(int slot) implements Node {
+        public double eval(Context ctx) {
+            return ctx.variable(slot);
+        }
+    }
+
+    enum PlayerField { HEALTH, LEVEL, FOOD }
+
+    record PlayerValue(PlayerField field) implements Node {
+        public double eval(Context ctx) {
+            PlayerStateCache.State state = ctx.state;
+            if (state != null) {
+                return switch (field) {
+                    case HEALTH -> state.health();
+                    case LEVEL -> state.level();
+                    case FOOD -> state.food();
+                };
+            }
+            return switch (field) {
+                case HEALTH -> ctx.player.getHealth();
+                case LEVEL -> ctx.player.getLevel();
+                case FOOD -> ctx.player.getFoodLevel();
+            };
+        }
+    }
+
+    record AttributeValue(Attribute attribute, double fallback) implements Node {
+        public double eval(Context ctx) {
+            if (ctx.state != null) {
+                Double value = ctx.state.attributes().get(attribute);
+                if (value == null) return Double.NaN;
+                return Double.isNaN(value) ? fallback : value;
+            }
+            AttributeInstance instance = ctx.player.getAttribute(attribute);
+            return instance != null ? instance.getValue() : fallback;
+        }
+    }
+
+    record Negate(Node operand) implements Node {
+        public double eval(Context ctx) {
+            return -operand.eval(ctx);
+        }
+    }
+
+    // 内联的expr变量 结果与单独解析该变量时一致
+    record Round(Node operand, int decimals) implements Node {
+        public double eval(Context ctx) {
+            return DecimalFormatter.round(operand.eval(ctx), decimals);
+        }
+    }
+
+    record Binary(char op, Node left, Node right) implements Node {
+        public double eval(Context ctx) {
+            double a = left.eval(ctx);
+            double b = right.eval(ctx);
+            return switch (op) {
+                case '+' -> a + b;
+                case '-' -> a - b;
+                case '*' -> a * b;
+                case '/' -> a / b;
+                case '%' -> a % b;
+                case '^' -> Math.pow(a, b);
+                default -> throw new IllegalStateException("unknown operator " + op);
+            };
+        }
+    }
+
+    enum Function {
+        MIN(2, Integer.MAX_VALUE),
+        MAX(2, Integer.MAX_VALUE),
+        ABS(1, 1),
+        FLOOR(1, 1),
+        CEIL(1, 1),
+        ROUND(1, 1),
+        SQRT(1, 1),
+        POW(2, 2),
+        CLAMP(3, 3);
+
+        final int minArgs;
+        final int maxArgs;
+
+        Function(int minArgs, int maxArgs) {
+            this.minArgs = minArgs;
+            this.maxArgs = maxArgs;
+        }
+
+        static Function fromName(String name) {
+            for (Function function : values()) {
+                if (function.name().equalsIgnoreCase(name)) return function;
+            }
+            return null;
+        }
+    }
+
+    record Call(Function function, Node[] args) implements Node {
+        public double eval(Context ctx) {
+            double first = args[0].eval(ctx);
+            return switch (function) {
+                case MIN -> {
+                    double result = first;
+                    for (int i = 1; i < args.length; i++) result = Math.min(result, args[i].eval(ctx));
+                    yield result;
+                }
+                case MAX -> {
+                    double result = first;
+                    for (int i = 1; i < args.length; i++) result = Math.max(result, args[i].eval(ctx));
+                    yield result;
+                }
+                case ABS -> Math.abs(first);
+                case FLOOR -> Math.floor(first);
+                case CEIL -> Math.ceil(first);
+                case ROUND -> Math.round(first);
+                case SQRT -> Math.sqrt(first);
+                case POW -> Math.pow(first, args[1].eval(ctx));
+                case CLAMP -> Math.max(args[1].eval(ctx), Math.min(args[2].eval(ctx), first));
+            };
+        }
+    }
+}
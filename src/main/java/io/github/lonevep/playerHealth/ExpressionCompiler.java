@@ -0,0 +1,143 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.bukkit.attribute.Attribute;
+
+// 将expr模式变量编译为Expression 引用的expr变量按依赖关系内联 循环引用的变量全部拒绝
+// 标识符优先匹配expr变量 其次是其他已编译的变量 最后是玩家属性
+final class ExpressionCompiler {
+    // 内联展开后的节点数上限 防止多层引用导致求值树过大
+    private static final int MAX_NODES = 4096;
+
+    private final DebugLog debugLog;
+    private final Map<String, Expression.Node> parsed = new LinkedHashMap<>();
+    private final Set<String> invalid = new LinkedHashSet<>();
+    private Set<String> otherVariables = Set.of();
+    private Map<String, Integer> decimals = Map.of();
+
+    ExpressionCompiler(DebugLog debugLog) {
+        this.debugLog = debugLog;
+    }
+
+    // sources和decimals以变量名为键 otherVariables为其他模式已编译的变量名
+    Map<String, Expression> compile(Map<String, String> sources, Map<String, Integer> decimals, Set<String> otherVariables) {
+        this.otherVariables = otherVariables;
+        this.decimals = decimals;
+        for (Map.Entry<String, String> entry : sources.entrySet()) {
+            String varName = entry.getKey();
+            try {
+                parsed.put(varName, ExpressionParser.parse(entry.getValue()));
+            } catch (IllegalArgumentException e) {
+                invalid.add(varName);
+                debugLog.log(null, () -> "变量 " + varName + " 表达式格式错误: " + e.getMessage() + "，表达式: " + entry.getValue() + "，请检查variable.yml配置");
+            }
+        }
+
+        Map<String, Expression> expressions = new HashMap<>();
+        for (String varName : parsed.keySet()) {
+            try {
+                Linker linker = new Linker(varName);
+                Expression.Node root = linker.link(parsed.get(varName));
+                expressions.put(varName, new Expression(root, linker.slots.keySet().toArray(new String[0]), decimals.getOrDefault(varName, 2), sources.get(varName)));
+            } catch (IllegalArgumentException e) {
+                debugLog.log(null, () -> "变量 " + varName + " 表达式无效: " + e.getMessage() + "，请检查variable.yml配置");
+            }
+        }
+        return expressions;
+    }
+
+    private static Expression.Node playerValue(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "health" -> {
+                return new Expression.PlayerValue(Expression.PlayerField.HEALTH);
+            }
+            case "max_health" -> {
+                return new Expression.AttributeValue(Attribute.GENERIC_MAX_HEALTH, 20.0);
+            }
+            case "level" -> {
+                return new Expression.PlayerValue(Expression.PlayerField.LEVEL);
+            }
+            case "food" -> {
+                return new Expression.PlayerValue(Expression.PlayerField.FOOD);
+            }
+            default -> {
+                // attr_generic_armor等 对应Attribute枚举名
+                if (!name.regionMatches(true, 0, "attr_", 0, 5)) return null;
+                try {
+                    return new Expression.AttributeValue(Attribute.valueOf(name.substring(5).toUpperCase(Locale.ROOT)), 0.0);
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+    }
+
+    // 一个expr变量的编译过程 内联时记录引用路径用于检测循环引用
+    private final class Linker {
+        private final Set<String> path = new LinkedHashSet<>();
+        private final Map<String, Integer> slots = new LinkedHashMap<>();
+        private int nodes;
+
+        Linker(String root) {
+            path.add(root);
+        }
+
+        Expression.Node link(Expression.Node node) {
+            if (++nodes > MAX_NODES) throw new IllegalArgumentException("引用展开后表达式过于复杂");
+            if (node instanceof Expression.Ident ident) {
+                return resolve(ident.name());
+            }
+            if (node instanceof Expression.Negate negate) {
+                Expression.Node operand = link(negate.operand());
+                return operand instanceof Expression.Const c ? new Expression.Const(-c.value()) : new Expression.Negate(operand);
+            }
+            if (node instanceof Expression.Binary binary) {
+                Expression.Node folded = new Expression.Binary(binary.op(), link(binary.left()), link(binary.right()));
+                return isConstant(folded) ? new Expression.Const(folded.eval(null)) : folded;
+            }
+            if (node instanceof Expression.Call call) {
+                Expression.Node[] args = new Expression.Node[call.args().length];
+                for (int i = 0; i < args.length; i++) args[i] = link(call.args()[i]);
+                Expression.Node folded = new Expression.Call(call.function(), args);
+                return isConstant(folded) ? new Expression.Const(folded.eval(null)) : folded;
+            }
+            return node;
+        }
+
+        private Expression.Node resolve(String name) {
+            Expression.Node dependency = parsed.get(name);
+            if (dependency != null) {
+                if (!path.add(name)) {
+                    throw new IllegalArgumentException("存在循环引用: " + String.join(" -> ", path) + " -> " + name);
+                }
+                Expression.Node inlined = link(dependency);
+                path.remove(name);
+                int scale = decimals.getOrDefault(name, 2);
+                return inlined instanceof Expression.Const c ?
+                    new Expression.Const(DecimalFormatter.round(c.value(), scale)) : new Expression.Round(inlined, scale);
+            }
+            if (invalid.contains(name)) throw new IllegalArgumentException("引用的变量 " + name + " 表达式无效");
+            if (otherVariables.contains(name)) {
+                return new Expression.VariableRef(slots.computeIfAbsent(name, key -> slots.size()));
+            }
+            Expression.Node value = playerValue(name);
+            if (value == null) throw new IllegalArgumentException("未知的变量或玩家属性: " + name);
+            return value;
+        }
+
+        private boolean isConstant(Expression.Node node) {
+            List<Expression.Node> operands = node instanceof Expression.Binary binary ?
+                List.of(binary.left(), binary.right()) : List.of(((Expression.Call) node).args());
+            for (Expression.Node operand : operands) {
+                if (!(operand instanceof Expression.Const)) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// expr模式表达式的递归下降解析器 标识符保留为Ident 由ExpressionCompiler解析引用
+// 语法: + - * / % ^(右结合) 一元正负号 括号 数字 变量名/玩家属性 函数调用
+// 格式错误时抛出IllegalArgumentException 消息直接用于配置错误提示
+final class ExpressionParser {
+    private final String source;
+    private int pos;
+
+    private ExpressionParser(String source) {
+        this.source = source;
+    }
+
+    static Expression.Node parse(String source) {
+        ExpressionParser parser = new ExpressionParser(source);
+        Expression.Node node = parser.parseSum();
+        parser.skipSpaces();
+        if (parser.pos < source.length()) throw parser.error("无法识别的字符 '" + source.charAt(parser.pos) + "'");
+        return node;
+    }
+
+    private Expression.Node parseSum() {
+        Expression.Node left = parseProduct();
+        while (true) {
+            char op = peek();
+            if (op != '+' && op != '-') return left;
+            pos++;
+            left = new Expression.Binary(op, left, parseProduct());
+        }
+    }
+
+    private Expression.Node parseProduct() {
+        Expression.Node left = parseUnary();
+        while (true) {
+            char op = peek();
+            if (op != '*' && op != '/' && op != '%') return left;
+            pos++;
+            left = new Expression.Binary(op, left, parseUnary());
+        }
+    }
+
+    private Expression.Node parseUnary() {
+        char c = peek();
+        if (c == '-') {
+            pos++;
+            return new Expression.Negate(parseUnary());
+        }
+        if (c == '+') {
+            pos++;
+            return parseUnary();
+        }
+        return parsePower();
+    }
+
+    // -2^2按-(2^2)计算 指数部分允许一元符号
+    private Expression.Node parsePower() {
+        Expression.Node base = parsePrimary();
+        if (peek() != '^') return base;
+        pos++;
+        return new Expression.Binary('^', base, parseUnary());
+    }
+
+    private Expression.Node parsePrimary() {
+        char c = peek();
+        if (c == '(') {
+            pos++;
+            Expression.Node inner = parseSum();
+            expect(')');
+            return inner;
+        }
+        if (isDigit(c) || c == '.') return parseNumber();
+        if (isIdentifierStart(c)) return parseIdentifier();
+        if (c == 0) throw error("表达式不完整");
+        throw error("无法识别的字符 '" + c + "'");
+    }
+
+    private Expression.Node parseNumber() {
+        int start = pos;
+        while (pos < source.length() && (isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) pos++;
+        String text = source.substring(start, pos);
+        try {
+            return new Expression.Const(Double.parseDouble(text));
+        } catch (NumberFormatException e) {
+            throw error("数字格式错误 '" + text + "'");
+        }
+    }
+
+    private Expression.Node parseIdentifier() {
+        int start = pos;
+        while (pos < source.length() && isIdentifierPart(source.charAt(pos))) pos++;
+        String name = source.substring(start, pos);
+        if (peek() != '(') return new Expression.Ident(name);
+
+        Expression.Function function = Expression.Function.fromName(name);
+        if (function == null) throw error("未知的函数 " + name);
+        pos++;
+        List<Expression.Node> args = new ArrayList<>();
+        if (peek() != ')') {
+            do {
+                args.add(parseSum());
+            } while (consume(','));
+        }
+        expect(')');
+        if (args.size() < function.minArgs || args.size() > function.maxArgs) {
+            throw error("函数 " + name + " 的参数数量错误: " + args.size());
+        }
+        return new Expression.Call(function, args.toArray(new Expression.Node[0]));
+    }
+
+    private char peek() {
+        skipSpaces();
+        return pos < source.length() ? source.charAt(pos) : 0;
+    }
+
+    private boolean consume(char c) {
+        if (peek() != c) return false;
+        pos++;
+        return true;
+    }
+
+    private void expect(char c) {
+        if (!consume(c)) throw error("缺少 '" + c + "'");
+    }
+
+    private void skipSpaces() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) pos++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " (位置 " + (pos + 1) + ")");
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || isDigit(c);
+    }
+}
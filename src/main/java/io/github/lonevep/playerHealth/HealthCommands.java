@@ -0,0 +1,78 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.function.Supplier;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+// give/set指令的参数校验和单个目标的结算 不依赖插件实例 由PlayerHealth的指令处理和LoadSimulation共用
+// give/set只能在目标玩家所在的线程调用
+final class HealthCommands {
+    private final Supplier<Messages> messages;
+    private final AuditLog auditLog;
+    private final DebugLog debugLog;
+
+    // auditLog为null时不记录审计日志
+    HealthCommands(Supplier<Messages> messages, AuditLog auditLog, DebugLog debugLog) {
+        this.messages = messages;
+        this.auditLog = auditLog;
+        this.debugLog = debugLog;
+    }
+
+    // NaN/Infinity会使setHealth抛出异常 set不能为负数 give为负数时表示扣除生命值
+    static boolean isValidAmount(String subCommand, double amount) {
+        return Double.isFinite(amount) && (amount >= 0 || subCommand.equalsIgnoreCase("give"));
+    }
+
+    // 无法解析或数值无效时向执行者发送提示并返回NaN
+    double parseAmount(CommandSender sender, String subCommand, String amountStr) {
+        double amount;
+        try {
+            amount = Double.parseDouble(amountStr);
+        } catch (NumberFormatException e) {
+            amount = Double.NaN;
+        }
+        if (!isValidAmount(subCommand, amount)) {
+            messages.get().send(sender, MessageKey.ERROR_INVALID_AMOUNT);
+            debugLog.log(sender, () -> "Invalid amount: " + amountStr);
+            return Double.NaN;
+        }
+        return amount;
+    }
+
+    void give(CommandSender sender, Player target, double amount, double maxHealth) {
+        double before = target.getHealth();
+        double newHealth = HealthService.applyHeal(target, amount, maxHealth);
+        audit(sender, target, true, before, newHealth);
+
+        Messages messages = this.messages.get();
+        String amountText = String.valueOf((int)amount);
+        messages.send(sender, MessageKey.GIVE_SUCCESS, target.getName(), amountText);
+        messages.send(target, MessageKey.GIVE_RECEIVE, amountText, String.valueOf((int)newHealth), String.valueOf((int)maxHealth));
+
+        debugLog.log(sender, () -> "Gave health: " + amount + " to " + target.getName());
+    }
+
+    void set(CommandSender sender, Player target, double amount, double maxHealth) {
+        Messages messages = this.messages.get();
+        if (amount > maxHealth) {
+            messages.send(sender, MessageKey.ERROR_EXCEED_MAX, String.valueOf((int)maxHealth));
+            debugLog.log(sender, () -> "Set amount exceeds max health: " + amount + "/" + maxHealth);
+            return;
+        }
+
+        double before = target.getHealth();
+        target.setHealth(amount);
+        audit(sender, target, false, before, amount);
+
+        String amountText = String.valueOf((int)amount);
+        messages.send(sender, MessageKey.SET_SUCCESS, target.getName(), amountText);
+        messages.send(target, MessageKey.SET_RECEIVE, amountText, amountText, String.valueOf((int)maxHealth));
+
+        debugLog.log(sender, () -> "Set health: " + amount + " for " + target.getName());
+    }
+
+    void audit(CommandSender sender, Player target, boolean give, double before, double after) {
+        if (auditLog == null) return;
+        auditLog.record(new AuditLog.Entry(System.currentTimeMillis(), give, sender.getName(), target.getName(), before, after));
+    }
+}
@@ -0,0 +1,135 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+// 合并同一tick内对同一玩家的give/set 下一tick在目标玩家所在的线程按提交顺序结算
+// 每名玩家只读取一次最大生命值 只调用一次setHealth 结算结果交给onFlush统一发送提示和记录审计日志
+// 可在任意线程提交 Folia下执行者与目标不在同一区域时也能合并
+final class HealthMutationBuffer {
+    // 一次give/set 结算后填入修改前后的生命值
+    static final class Mutation {
+        private final CommandSender sender;
+        private final boolean give;
+        private final double amount;
+        private double before;
+        private double after;
+        private boolean rejected;
+
+        private Mutation(CommandSender sender, boolean give, double amount) {
+            this.sender = sender;
+            this.give = give;
+            this.amount = amount;
+        }
+
+        CommandSender sender() {
+            return sender;
+        }
+
+        boolean give() {
+            return give;
+        }
+
+        double amount() {
+            return amount;
+        }
+
+        double before() {
+            return before;
+        }
+
+        double after() {
+            return after;
+        }
+
+        // set的数值超过最大生命值 未生效
+        boolean rejected() {
+            return rejected;
+        }
+    }
+
+    // 一名玩家在一个tick内的全部修改 玩家已离线时mutations均未结算
+    record Batch(Player target, List<Mutation> mutations, double maxHealth, double before, double after) {
+    }
+
+    private final PluginScheduler scheduler;
+    private final Consumer<Batch> onFlush;
+    private final Map<UUID, Pending> pending = new ConcurrentHashMap<>();
+
+    HealthMutationBuffer(PluginScheduler scheduler, Consumer<Batch> onFlush) {
+        this.scheduler = scheduler;
+        this.onFlush = onFlush;
+    }
+
+    void give(CommandSender sender, Player target, double amount) {
+        add(target, new Mutation(sender, true, amount));
+    }
+
+    void set(CommandSender sender, Player target, double health) {
+        add(target, new Mutation(sender, false, health));
+    }
+
+    // mutations只在compute中修改 与flush中的remove互斥
+    private void add(Player target, Mutation mutation) {
+        UUID id = target.getUniqueId();
+        boolean[] created = new boolean[1];
+        pending.compute(id, (key, entry) -> {
+            if (entry == null) {
+                entry = new Pending(target);
+                created[0] = true;
+            }
+            entry.mutations.add(mutation);
+            return entry;
+        });
+        // 玩家在结算前离线时由retired回调结算 向执行者报告玩家不在线
+        if (created[0]) scheduler.schedule(target, () -> flush(id), () -> flush(id));
+    }
+
+    private void flush(UUID id) {
+        Pending entry = pending.remove(id);
+        if (entry != null) onFlush.accept(entry.resolve());
+    }
+
+    // 插件关闭时直接调用 不等待下一tick 当前线程不拥有的玩家(仅Folia)无法结算 直接丢弃
+    void flushAll() {
+        for (Pending entry : new ArrayList<>(pending.values())) {
+            if (!entry.target.isOnline() || scheduler.ownsEntity(entry.target)) flush(entry.target.getUniqueId());
+        }
+        pending.clear();
+    }
+
+    private static final class Pending {
+        private final Player target;
+        private final List<Mutation> mutations = new ArrayList<>(2);
+
+        Pending(Player target) {
+            this.target = target;
+        }
+
+        Batch resolve() {
+            if (!target.isOnline()) return new Batch(target, mutations, 0.0, 0.0, 0.0);
+            double maxHealth = HealthService.maxHealth(target);
+            double initial = target.getHealth();
+            double health = initial;
+            for (Mutation mutation : mutations) {
+                mutation.before = health;
+                if (mutation.give) {
+                    health = Math.max(Math.min(health + mutation.amount, maxHealth), 0.0);
+                } else if (mutation.amount > maxHealth) {
+                    mutation.rejected = true;
+                } else {
+                    health = mutation.amount;
+                }
+                mutation.after = health;
+            }
+            if (health != initial) target.setHealth(health);
+            return new Batch(target, mutations, maxHealth, initial, health);
+        }
+    }
+}
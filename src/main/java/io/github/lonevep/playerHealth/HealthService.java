@@ -0,0 +1,127 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.Collection;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.bukkit.attribute.Attribute;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+// PlayerHealthService的实现 与give/set指令共用生命值计算
+final class HealthService implements PlayerHealthService {
+    private final VariableResolver resolver;
+    private final Supplier<VariableRegistry> registry;
+    private final Predicate<Player> ownsPlayer;
+
+    HealthService(VariableResolver resolver, Supplier<VariableRegistry> registry, Predicate<Player> ownsPlayer) {
+        this.resolver = resolver;
+        this.registry = registry;
+        this.ownsPlayer = ownsPlayer;
+    }
+
+    static double maxHealth(Player player) {
+        var attribute = player.getAttribute(Attribute.GENERIC_MAX_HEALTH);
+        return attribute != null ? attribute.getValue() : 20.0;
+    }
+
+    // 返回恢复后的生命值 不超过最大生命值
+    static double applyHeal(Player player, double amount, double maxHealth) {
+        double newHealth = Math.max(Math.min(player.getHealth() + amount, maxHealth), 0.0);
+        player.setHealth(newHealth);
+        return newHealth;
+    }
+
+    @Override
+    public boolean hasVariable(String name) {
+        VariableRegistry current = registry.get();
+        return current.isEnabled() && current.get(name) != null;
+    }
+
+    @Override
+    public double resolveVariable(Player player, String name, double fallback) {
+        return resolver.resolveValue(player, name, fallback);
+    }
+
+    @Override
+    public void resolveVariables(Player player, String[] names, double[] results, double fallback) {
+        if (results.length < names.length) {
+            throw new IllegalArgumentException("results长度(" + results.length + ")小于names长度(" + names.length + ")");
+        }
+        for (int i = 0; i < names.length; i++) {
+            results[i] = resolver.resolveValue(player, names[i], fallback);
+        }
+    }
+
+    @Override
+    public boolean rollItem(ItemStack item, String name) {
+        return resolver.rollItem(item, name);
+    }
+
+    @Override
+    public boolean rollHeldItem(Player player, String name) {
+        checkOwner(player);
+        ItemStack item = player.getInventory().getItemInMainHand();
+        if (!resolver.rollItem(item, name)) return false;
+        // 主手物品可能是副本 写回后结果才会保存
+        player.getInventory().setItemInMainHand(item);
+        return true;
+    }
+
+    @Override
+    public double heal(Player player, double amount) {
+        checkOwner(player);
+        if (!Double.isFinite(amount)) return player.getHealth();
+        return applyHeal(player, amount, maxHealth(player));
+    }
+
+    @Override
+    public boolean setHealth(Player player, double health) {
+        checkOwner(player);
+        if (!isValidHealth(health) || health > maxHealth(player)) return false;
+        player.setHealth(health);
+        return true;
+    }
+
+    @Override
+    public int healAll(Collection<? extends Player> players, double amount) {
+        checkOwners(players);
+        if (!Double.isFinite(amount)) return 0;
+        int count = 0;
+        for (Player player : players) {
+            if (!player.isOnline()) continue;
+            applyHeal(player, amount, maxHealth(player));
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public int setHealthAll(Collection<? extends Player> players, double health) {
+        checkOwners(players);
+        if (!isValidHealth(health)) return 0;
+        int count = 0;
+        for (Player player : players) {
+            if (!player.isOnline() || health > maxHealth(player)) continue;
+            player.setHealth(health);
+            count++;
+        }
+        return count;
+    }
+
+    // 负数和NaN/Infinity会使Player#setHealth抛出异常
+    private static boolean isValidHealth(double health) {
+        return health >= 0 && Double.isFinite(health);
+    }
+
+    // 修改任何玩家之前先检查全部玩家 避免抛出异常时已修改了一部分
+    private void checkOwners(Collection<? extends Player> players) {
+        for (Player player : players) {
+            if (player.isOnline()) checkOwner(player);
+        }
+    }
+
+    // 普通Paper上要求主线程 Folia上要求玩家所在区域的线程
+    private void checkOwner(Player player) {
+        if (!ownsPlayer.test(player)) throw new IllegalStateException("PlayerHealthService的生命值和rollHeldItem方法只能在玩家所在的线程调用: " + player.getName());
+    }
+}
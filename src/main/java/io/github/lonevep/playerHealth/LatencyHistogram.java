@@ -0,0 +1,65 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// 固定分桶的耗时直方图 第i个桶记录[2^(i-1), 2^i)微秒 多线程记录时不加锁
+final class LatencyHistogram {
+    static final int BUCKETS = 22;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) buckets[i] = new LongAdder();
+    }
+
+    void record(long nanos) {
+        long micros = nanos / 1000L;
+        int index = Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+        buckets[index].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    double meanMicros() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : totalNanos.sum() / 1000.0 / n;
+    }
+
+    long maxMicros() {
+        return maxNanos.get() / 1000L;
+    }
+
+    // 返回百分位所在桶的上界 单位微秒 最后一个桶没有上界时返回最大值
+    long percentileMicros(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) return 0L;
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            seen += counts[i];
+            if (seen >= rank) return 1L << i;
+        }
+        return maxMicros();
+    }
+
+    void reset() {
+        for (LongAdder bucket : buckets) bucket.reset();
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.Arrays;
+import java.util.List;
+import net.kyori.adventure.text.Component;
+
+// 由所有精英变量prefix构建的前缀树 一次遍历lore即可取出全部变量的数值
+// 直接遍历lore的Component树 按可见字符和颜色/格式匹配 不再序列化为§字符串
+final class LorePrefixScanner {
+    static final LorePrefixScanner EMPTY = new LorePrefixScanner(List.of());
+
+    private final Node root = new Node();
+    private final int prefixCount;
+
+    // prefixes为规范化后的§格式 其下标即结果数组中的下标
+    LorePrefixScanner(List<String> prefixes) {
+        this.prefixCount = prefixes.size();
+        for (int i = 0; i < prefixes.size(); i++) {
+            StyledLine prefix = StyledLine.fromLegacy(prefixes.get(i));
+            Node node = root;
+            for (int j = 0; j < prefix.length(); j++) {
+                node = node.childOrCreate(key(prefix.charAt(j), prefix.styleAt(j)));
+            }
+            node.addTerminal(i, prefix.trailingStyle());
+        }
+    }
+
+    int prefixCount() {
+        return prefixCount;
+    }
+
+    // 每个前缀取第一条以其开头的lore行 前缀后没有数字或没有匹配行时结果为null
+    String[] scan(List<Component> lore) {
+        String[] results = new String[prefixCount];
+        if (prefixCount == 0) return results;
+
+        boolean[] matched = new boolean[prefixCount];
+        int remaining = prefixCount;
+        StyledLine line = new StyledLine(64);
+        for (Component component : lore) {
+            line.load(component);
+            Node node = root;
+            for (int i = 0; node != null; i++) {
+                for (int t = 0; t < node.terminals.length; t++) {
+                    int index = node.terminals[t];
+                    if (matched[index] || !line.continuesWith(i, node.trailingStyles[t])) continue;
+                    matched[index] = true;
+                    results[index] = line.numberFrom(i);
+                    if (--remaining == 0) return results;
+                }
+                if (i >= line.length()) break;
+                node = node.child(key(line.charAt(i), line.styleAt(i)));
+            }
+        }
+        return results;
+    }
+
+    private static long key(char c, int style) {
+        return (long) style << 16 | c;
+    }
+
+    private static final class Node {
+        private long[] keys = new long[0];
+        private Node[] children = new Node[0];
+        // 可见文本相同的前缀可能只在末尾颜色代码上不同 因此一个节点可以对应多个前缀
+        private int[] terminals = new int[0];
+        private int[] trailingStyles = new int[0];
+
+        Node child(long key) {
+            int i = Arrays.binarySearch(keys, key);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node childOrCreate(long key) {
+            int i = Arrays.binarySearch(keys, key);
+            if (i >= 0) return children[i];
+
+            int insert = -i - 1;
+            long[] newKeys = new long[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            newKeys[insert] = key;
+            newChildren[insert] = new Node();
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[insert];
+        }
+
+        void addTerminal(int prefixIndex, int trailingStyle) {
+            terminals = Arrays.copyOf(terminals, terminals.length + 1);
+            trailingStyles = Arrays.copyOf(trailingStyles, trailingStyles.length + 1);
+            terminals[terminals.length - 1] = prefixIndex;
+            trailingStyles[trailingStyles.length - 1] = trailingStyle;
+        }
+    }
+}
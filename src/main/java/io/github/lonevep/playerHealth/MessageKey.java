@@ -0,0 +1,59 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.List;
+
+// 插件使用的message.yml条目及其可用参数 参数顺序即发送时传入的参数顺序
+enum MessageKey {
+    USAGE_PLAYERHEALTH("usage-playerhealth"),
+    USAGE_PH("usage-ph"),
+    GIVE_SUCCESS("give-success", "target", "amount"),
+    GIVE_RECEIVE("give-receive", "amount", "health", "max_health"),
+    SET_SUCCESS("set-success", "target", "amount"),
+    SET_RECEIVE("set-receive", "amount", "health", "max_health"),
+    GIVE_SUCCESS_MASS("give-success-mass", "count", "amount", "skipped"),
+    SET_SUCCESS_MASS("set-success-mass", "count", "amount", "skipped"),
+    HEALTH_RECEIVE_COMBINED("health-receive-combined", "count", "change", "health", "max_health"),
+    REGEN_SUCCESS("regen-success", "target", "amount", "seconds"),
+    REGEN_RECEIVE("regen-receive", "amount", "seconds"),
+    REGEN_SUCCESS_MASS("regen-success-mass", "count", "amount", "seconds"),
+    ERROR_PLAYER_NOT_FOUND("error-player-not-found", "target"),
+    ERROR_INVALID_SELECTOR("error-invalid-selector", "target"),
+    ERROR_NO_PERMISSION("error-no-permission"),
+    ERROR_INVALID_AMOUNT("error-invalid-amount"),
+    ERROR_INVALID_DURATION("error-invalid-duration"),
+    ERROR_EXCEED_MAX("error-exceed-max", "max_health"),
+    ERROR_VARIABLE_NOT_FOUND("error-variable-not-found"),
+    ERROR_VARIABLE_NOT_NORMAL("error-variable-not-normal"),
+    ERROR_VARIABLE_VALUES_EMPTY("error-variable-values-empty"),
+    PARSE_SUCCESS("parse-success"),
+    RELOAD_SUCCESS("reload-success"),
+    RELOAD_IN_PROGRESS("reload-in-progress"),
+    RELOAD_FAILED("reload-failed"),
+    TRACE_ENABLED("trace-enabled"),
+    TRACE_DISABLED("trace-disabled"),
+    TRACE_CLEARED("trace-cleared"),
+    TRACE_EMPTY("trace-empty"),
+    TRACE_HEADER("trace-header", "count"),
+    STATS_HEADER("stats-header"),
+    STATS_RESET("stats-reset"),
+    STATS_DISABLED("stats-disabled"),
+    AUDIT_HEADER("audit-header", "count"),
+    AUDIT_EMPTY("audit-empty"),
+    AUDIT_DISABLED("audit-disabled");
+
+    private final String path;
+    private final List<String> params;
+
+    MessageKey(String path, String... params) {
+        this.path = path;
+        this.params = List.of(params);
+    }
+
+    String path() {
+        return path;
+    }
+
+    List<String> params() {
+        return params;
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+// 加载时编译的消息模板 文本段与参数槽交替存放 颜色代码在编译时已完成规范化
+// 不含参数的消息直接缓存渲染结果和Component 发送时不再解析
+final class MessageTemplate {
+    private final String[] literals;
+    private final int[] slots;
+    private final String[] slotNames;
+    private final int literalLength;
+    private final String text;
+    private final List<Component> lines;
+
+    private MessageTemplate(String[] literals, int[] slots, String[] slotNames, String text, List<Component> lines) {
+        this.literals = literals;
+        this.slots = slots;
+        this.slotNames = slotNames;
+        int length = 0;
+        for (String literal : literals) length += literal.length();
+        this.literalLength = length;
+        this.text = text;
+        this.lines = lines;
+    }
+
+    // 消息为空时返回null 表示不发送 未声明的{xxx}按原文保留
+    static MessageTemplate compile(String raw, List<String> params) {
+        if (raw == null || raw.trim().isEmpty()) return null;
+        LegacyComponentSerializer serializer = LegacyComponentSerializer.legacySection();
+        String normalized = serializer.serialize(serializer.deserialize(raw));
+        
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<String> slotNames = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int pos = 0;
+        while (pos < normalized.length()) {
+            int open = normalized.indexOf('{', pos);
+            int close = open < 0 ? -1 : normalized.indexOf('}', open + 1);
+            if (close < 0) break;
+            String name = normalized.substring(open + 1, close);
+            int slot = params.indexOf(name);
+            if (slot < 0) {
+                literal.append(normalized, pos, close + 1);
+            } else {
+                literal.append(normalized, pos, open);
+                literals.add(literal.toString());
+                literal.setLength(0);
+                slots.add(slot);
+                slotNames.add(name);
+            }
+            pos = close + 1;
+        }
+        literal.append(normalized, pos, normalized.length());
+        literals.add(literal.toString());
+        
+        if (!slots.isEmpty()) {
+            int[] slotArray = new int[slots.size()];
+            for (int i = 0; i < slotArray.length; i++) slotArray[i] = slots.get(i);
+            return new MessageTemplate(literals.toArray(new String[0]), slotArray, slotNames.toArray(new String[0]), null, null);
+        }
+        
+        // 静态消息按行预先生成Component 多行的使用说明逐行发送
+        List<Component> lines = new ArrayList<>();
+        for (String line : normalized.split("\\r?\\n")) {
+            if (!line.trim().isEmpty()) lines.add(serializer.deserialize(line));
+        }
+        return new MessageTemplate(new String[]{normalized}, new int[0], new String[0], normalized, List.copyOf(lines));
+    }
+
+    boolean isStatic() {
+        return text != null;
+    }
+
+    // args按MessageKey声明的参数顺序传入
+    String render(String... args) {
+        if (text != null) return text;
+        StringBuilder sb = new StringBuilder(literalLength + slots.length * 8);
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(literals[i]);
+            int slot = slots[i];
+            if (slot < args.length && args[slot] != null) {
+                sb.append(args[slot]);
+            } else {
+                sb.append('{').append(slotNames[i]).append('}');
+            }
+        }
+        return sb.append(literals[slots.length]).toString();
+    }
+
+    // 仅静态消息可用
+    List<Component> lines() {
+        return lines;
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.EnumMap;
+import java.util.Map;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.file.FileConfiguration;
+import net.kyori.adventure.text.Component;
+
+// message.yml的消息模板 加载时一次性编译 消息为空时不发送
+final class Messages {
+    static final Messages EMPTY = new Messages(null);
+
+    private final Map<MessageKey, MessageTemplate> templates = new EnumMap<>(MessageKey.class);
+
+    Messages(FileConfiguration messageConfig) {
+        if (messageConfig == null) return;
+        for (MessageKey key : MessageKey.values()) {
+            MessageTemplate template = MessageTemplate.compile(messageConfig.getString(key.path(), ""), key.params());
+            if (template != null) templates.put(key, template);
+        }
+    }
+
+    void send(CommandSender sender, MessageKey key, String... args) {
+        MessageTemplate template = templates.get(key);
+        if (template == null) return;
+        if (template.isStatic()) {
+            for (Component line : template.lines()) {
+                sender.sendMessage(line);
+            }
+        } else {
+            sender.sendMessage(template.render(args));
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import net.kyori.adventure.text.Component;
+import org.bukkit.inventory.ItemStack;
+
+// 占位符/变量解析/精英lore扫描/生命值指令的调用次数与耗时统计
+// 关闭时调用方不读取时钟 所有计数器使用LongAdder 异步线程记录时不产生竞争
+final class Metrics implements PlayerHealthMetricsMXBean {
+    static final Metrics DISABLED = new Metrics(false);
+
+    private final boolean enabled;
+    private final LongAdder placeholderRequests = new LongAdder();
+    private final LongAdder placeholderErrors = new LongAdder();
+    private final LatencyHistogram placeholderLatency = new LatencyHistogram();
+    private final Map<String, VariableStats> variables = new ConcurrentHashMap<>();
+    private final LongAdder unknownVariables = new LongAdder();
+    private final LatencyHistogram eliteScanLatency = new LatencyHistogram();
+    private final AtomicReference<SlowScan> slowestScan = new AtomicReference<>();
+    private final LongAdder giveCommands = new LongAdder();
+    private final LongAdder setCommands = new LongAdder();
+    private final LatencyHistogram commandLatency = new LatencyHistogram();
+
+    Metrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void recordPlaceholder(long nanos, boolean error) {
+        placeholderRequests.increment();
+        if (error) placeholderErrors.increment();
+        placeholderLatency.record(nanos);
+    }
+
+    // 只为已配置的变量单独统计 未配置的变量名统一计数 避免任意占位符撑大统计表
+    void recordVariable(String name, boolean known, long nanos, boolean fallback) {
+        if (!known) {
+            unknownVariables.increment();
+            return;
+        }
+        VariableStats stats = variables.computeIfAbsent(name, key -> new VariableStats());
+        stats.calls.increment();
+        if (fallback) stats.fallbacks.increment();
+        stats.latency.record(nanos);
+    }
+
+    // 任意线程调用 异步线程传入的是玩家所在线程保存的物品副本 只有可能刷新最慢记录时才读取物品信息
+    // 多个线程同时刷新时通过CAS保留耗时最长的一条
+    void recordEliteScan(long nanos, ItemStack item) {
+        eliteScanLatency.record(nanos);
+        SlowScan slowest = slowestScan.get();
+        if (slowest != null && nanos <= slowest.nanos()) return;
+        List<Component> lore = item.hasItemMeta() ? item.getItemMeta().lore() : null;
+        SlowScan scan = new SlowScan(item.getType().name(), lore == null ? 0 : lore.size(), nanos);
+        while (!slowestScan.compareAndSet(slowest, scan)) {
+            slowest = slowestScan.get();
+            if (slowest != null && nanos <= slowest.nanos()) return;
+        }
+    }
+
+    void recordCommand(boolean give, long nanos) {
+        (give ? giveCommands : setCommands).increment();
+        commandLatency.record(nanos);
+    }
+
+    LatencyHistogram placeholderLatency() {
+        return placeholderLatency;
+    }
+
+    LatencyHistogram eliteScanLatency() {
+        return eliteScanLatency;
+    }
+
+    LatencyHistogram commandLatency() {
+        return commandLatency;
+    }
+
+    // 先读取各计数器的当前值再排序 按调用次数从高到低排列
+    List<VariableSummary> hottestVariables(int limit) {
+        List<VariableSummary> sorted = new ArrayList<>(variables.size());
+        for (Map.Entry<String, VariableStats> entry : variables.entrySet()) {
+            VariableStats stats = entry.getValue();
+            sorted.add(new VariableSummary(entry.getKey(), stats.calls.sum(), stats.fallbacks.sum(),
+                stats.latency.meanMicros(), stats.latency.percentileMicros(0.99)));
+        }
+        sorted.sort(Comparator.comparingLong(VariableSummary::calls).reversed());
+        return sorted.size() > limit ? sorted.subList(0, limit) : sorted;
+    }
+
+    @Override
+    public long getPlaceholderRequests() {
+        return placeholderRequests.sum();
+    }
+
+    @Override
+    public long getPlaceholderErrors() {
+        return placeholderErrors.sum();
+    }
+
+    @Override
+    public double getPlaceholderMeanMicros() {
+        return placeholderLatency.meanMicros();
+    }
+
+    @Override
+    public long getPlaceholderP99Micros() {
+        return placeholderLatency.percentileMicros(0.99);
+    }
+
+    @Override
+    public Map<String, Long> getVariableCalls() {
+        return variableView(VariableSummary::calls);
+    }
+
+    @Override
+    public Map<String, Long> getVariableFallbacks() {
+        return variableView(VariableSummary::fallbacks);
+    }
+
+    @Override
+    public Map<String, Long> getVariableP99Micros() {
+        return variableView(VariableSummary::p99Micros);
+    }
+
+    @Override
+    public long getUnknownVariableCalls() {
+        return unknownVariables.sum();
+    }
+
+    @Override
+    public long getEliteScans() {
+        return eliteScanLatency.count();
+    }
+
+    @Override
+    public long getEliteScanP99Micros() {
+        return eliteScanLatency.percentileMicros(0.99);
+    }
+
+    @Override
+    public String getSlowestEliteItem() {
+        SlowScan slowest = slowestScan.get();
+        return slowest == null ? "" : slowest.describe();
+    }
+
+    @Override
+    public long getGiveCommands() {
+        return giveCommands.sum();
+    }
+
+    @Override
+    public long getSetCommands() {
+        return setCommands.sum();
+    }
+
+    @Override
+    public long getCommandP99Micros() {
+        return commandLatency.percentileMicros(0.99);
+    }
+
+    @Override
+    public void reset() {
+        placeholderRequests.reset();
+        placeholderErrors.reset();
+        placeholderLatency.reset();
+        variables.clear();
+        unknownVariables.reset();
+        eliteScanLatency.reset();
+        slowestScan.set(null);
+        giveCommands.reset();
+        setCommands.reset();
+        commandLatency.reset();
+    }
+
+    private Map<String, Long> variableView(ToLongFunction<VariableSummary> value) {
+        Map<String, Long> view = new LinkedHashMap<>();
+        for (VariableSummary summary : hottestVariables(Integer.MAX_VALUE)) {
+            view.put(summary.name(), value.applyAsLong(summary));
+        }
+        return view;
+    }
+
+    record VariableSummary(String name, long calls, long fallbacks, double meanMicros, long p99Micros) {}
+
+    private static final class VariableStats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder fallbacks = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+    }
+
+    record SlowScan(String item, int loreLines, long nanos) {
+        String describe() {
+            return item + " (" + loreLines + "行lore, " + nanos / 1000L + "µs)";
+        }
+    }
+}
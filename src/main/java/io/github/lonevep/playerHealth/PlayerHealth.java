@@ -1,42 +1,99 @@
 package io.github.lonevep.playerHealth;
 
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.Bukkit;
-import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.attribute.Attribute;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import net.kyori.adventure.text.Component;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import javax.management.JMException;
+import javax.management.ObjectName;
 import org.jetbrains.annotations.NotNull;
 
 public final class PlayerHealth extends JavaPlugin implements TabCompleter {
     private static final String VERSION = "1.1.0";
     private static final String AUTHOR = "lone_vep";
     private static final String QQ = "2022901674";
-    private static final Pattern NUMBER_PATTERN = Pattern.compile("(-?\\d+(?:\\.\\d+)?)");
+    // 玩家名和变量名补全最多返回的数量
+    private static final int MAX_COMPLETIONS = 50;
+    private static final DateTimeFormatter AUDIT_TIME = DateTimeFormatter.ofPattern("MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
     
-    private FileConfiguration messageConfig;
-    private FileConfiguration variableConfig;
-    private boolean debug;
-    private final Random random = new Random();
+    private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    // 重载期间又收到重载请求 当前重载结束后再执行一次
+    private final AtomicBoolean reloadPending = new AtomicBoolean();
+    private PluginScheduler scheduler;
+    private ConfigWatcher configWatcher;
+    private DebugLog debugLog;
+    private Metrics metrics = Metrics.DISABLED;
+    private ObjectName metricsName;
+    private RandomSource randomSource = RandomSource.UNSEEDED;
+    private VariableCache variableCache;
     private PlayerHealthExpansion expansion;
+    private EliteLoreCache eliteCache;
+    private EquipmentLoreCache equipCache;
+    private VariableResolver variableResolver;
+    private TickSpreadExecutor massExecutor;
+    private RegenEngine regenEngine;
+    private PlayerNameIndex playerNames;
+    private AuditLog auditLog;
+    private ValuePoolRefiller poolRefiller;
+    private HealthMutationBuffer healthBuffer;
+    private HealthCommands healthCommands;
 
     @Override
     public void onEnable() {
         printStartupInfo();
+        scheduler = new PluginScheduler(this);
         initializeConfigs();
+        if (scheduler.isFoliaServer()) debug(null, "检测到Folia，生命值修改和背包读取在玩家所在区域的线程执行");
+        eliteCache = new EliteLoreCache();
+        Bukkit.getPluginManager().registerEvents(eliteCache, this);
+        equipCache = new EquipmentLoreCache(Math.max(getConfig().getLong("equip-revalidate-interval", 100L), 1L) * 50_000_000L);
+        Bukkit.getPluginManager().registerEvents(equipCache, this);
+        playerNames = new PlayerNameIndex();
+        Bukkit.getPluginManager().registerEvents(playerNames, this);
+        variableResolver = new VariableResolver(debugLog, metrics, eliteCache, equipCache, randomSource, () -> snapshot.registry(), scheduler::ownsEntity);
+        long snapshotInterval = Math.max(getConfig().getLong("async-snapshot-interval", 5L), 1L);
+        scheduler.runGlobalTimer(() -> variableResolver.refreshHeldItemSnapshots(scheduler), snapshotInterval, snapshotInterval);
+        massExecutor = new TickSpreadExecutor(scheduler, getConfig().getInt("mass-per-tick", 50));
+        regenEngine = new RegenEngine(scheduler, getConfig().getInt("regen-interval", 20),
+            RegenEngine.Stacking.fromConfig(getConfig().getString("regen-stacking", "stack")));
+        if (getConfig().getBoolean("health-coalesce", false)) {
+            healthBuffer = new HealthMutationBuffer(scheduler, this::applyMutations);
+        }
+        if (getConfig().getBoolean("audit", true)) {
+            auditLog = new AuditLog(new File(getDataFolder(), "audit").toPath(), getConfig().getLong("audit-max-size", 1024L) * 1024L,
+                getConfig().getInt("audit-max-files", 5), getLogger());
+            auditLog.start();
+        }
+        healthCommands = new HealthCommands(() -> snapshot.messages(), auditLog, debugLog);
+        poolRefiller = new ValuePoolRefiller(() -> snapshot.registry(), randomSource, debugLog);
+        poolRefiller.start();
+        Bukkit.getServicesManager().register(PlayerHealthService.class, new HealthService(variableResolver, () -> snapshot.registry(), scheduler::ownsEntity), this, ServicePriority.Normal);
         registerPlaceholderAPI();
+        registerMetricsMBean();
+        startConfigWatcher();
         Objects.requireNonNull(getCommand("playerhealth")).setTabCompleter(this);
     }
 
@@ -51,10 +108,80 @@ public final class PlayerHealth extends JavaPlugin implements TabCompleter {
 
     private void initializeConfigs() {
         saveDefaultConfig();
-        debug = getConfig().getBoolean("debug", false);
-        loadMessageConfig();
-        loadVariableConfig();
-        validateVariables();
+        debugLog = new DebugLog(getLogger(), getConfig().getBoolean("debug", false),
+            getConfig().getBoolean("trace", false), getConfig().getInt("trace-buffer-size", 256));
+        metrics = new Metrics(getConfig().getBoolean("metrics", true));
+        randomSource = getConfig().contains("random-seed") ? RandomSource.seeded(getConfig().getLong("random-seed", 0L)) : RandomSource.UNSEEDED;
+        if (getConfig().getBoolean("variable-cache", true)) {
+            variableCache = new VariableCache(new File(getDataFolder(), "variable.cache").toPath(), debugLog);
+        }
+        try {
+            snapshot = loadSnapshot();
+        } catch (IOException | InvalidConfigurationException | RuntimeException e) {
+            getLogger().log(Level.SEVERE, "配置文件加载失败，使用插件内置的默认配置", e);
+            snapshot = loadDefaultSnapshot();
+        }
+    }
+
+    // 读取并编译配置文件 不修改插件状态 可在异步线程调用
+    // 任一文件无法读取或YAML语法错误时抛出异常 由调用方保留旧配置
+    private ConfigSnapshot loadSnapshot() throws IOException, InvalidConfigurationException {
+        FileConfiguration messageConfig = loadMessageConfig();
+        VariableCompiler compiler = new VariableCompiler(this, debugLog);
+        
+        // 哈希与解析使用同一份内容 避免读取期间文件被修改导致缓存与内容不一致
+        byte[] yaml = Files.readAllBytes(variableFile().toPath());
+        byte[] hash = variableCache == null ? null : VariableCache.hash(yaml);
+        if (hash != null) {
+            VariableRegistry cached = variableCache.read(hash, compiler);
+            if (cached != null) {
+                debug(null, "[变量缓存] variable.yml未变化，使用编译缓存");
+                return new ConfigSnapshot(new Messages(messageConfig), cached, PrefixIndex.of(cached.names()));
+            }
+        }
+        
+        VariableRegistry registry = compiler.compile(parseYaml(yaml));
+        if (hash != null) variableCache.write(hash, registry);
+        return new ConfigSnapshot(new Messages(messageConfig), registry, PrefixIndex.of(registry.names()));
+    }
+
+    // 数据目录中的配置无法加载时使用jar内置的默认配置 内置配置也无法加载时所有变量不可用
+    private ConfigSnapshot loadDefaultSnapshot() {
+        try {
+            FileConfiguration messageConfig = loadResource("message.yml");
+            VariableRegistry registry = new VariableCompiler(this, debugLog).compile(loadResource("variable.yml"));
+            return new ConfigSnapshot(new Messages(messageConfig), registry, PrefixIndex.of(registry.names()));
+        } catch (IOException | InvalidConfigurationException | RuntimeException e) {
+            getLogger().log(Level.SEVERE, "内置默认配置加载失败，所有变量不可用", e);
+            return ConfigSnapshot.EMPTY;
+        }
+    }
+
+    private void startConfigWatcher() {
+        if (!getConfig().getBoolean("auto-reload", false)) return;
+        configWatcher = new ConfigWatcher(getDataFolder().toPath(), Set.of("message.yml", "variable.yml"),
+            getConfig().getLong("auto-reload-debounce", 500L), () -> reloadAsync(null), getLogger());
+        try {
+            configWatcher.start();
+            debug(null, "配置文件自动重载已开启");
+        } catch (IOException e) {
+            configWatcher = null;
+            getLogger().warning("配置文件自动重载开启失败: " + e.getMessage());
+        }
+    }
+
+    private void registerMetricsMBean() {
+        if (!metrics.isEnabled()) return;
+        try {
+            ObjectName name = new ObjectName("io.github.lonevep.playerHealth:type=Metrics");
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            }
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+            metricsName = name;
+        } catch (JMException e) {
+            getLogger().warning("运行统计JMX注册失败: " + e.getMessage());
+        }
     }
 
     private void registerPlaceholderAPI() {
@@ -67,7 +194,7 @@ public final class PlayerHealth extends JavaPlugin implements TabCompleter {
         }
     }
 
-    private void loadMessageConfig() {
+    private FileConfiguration loadMessageConfig() throws IOException, InvalidConfigurationException {
         File messageFile = new File(getDataFolder(), "message.yml");
         if (!messageFile.exists()) {
             try {
@@ -76,10 +203,24 @@ public final class PlayerHealth extends JavaPlugin implements TabCompleter {
                 // 文件已存在时不报错
             }
         }
-        messageConfig = YamlConfiguration.loadConfiguration(messageFile);
+        return parseYaml(Files.readAllBytes(messageFile.toPath()));
+    }
+
+    private FileConfiguration loadResource(String name) throws IOException, InvalidConfigurationException {
+        try (InputStream in = getResource(name)) {
+            if (in == null) throw new IOException("插件中缺少" + name);
+            return parseYaml(in.readAllBytes());
+        }
+    }
+
+    // 与YamlConfiguration.loadConfiguration不同 语法错误时抛出异常而不是返回空配置
+    private static FileConfiguration parseYaml(byte[] yaml) throws InvalidConfigurationException {
+        YamlConfiguration config = new YamlConfiguration();
+        config.loadFromString(new String(yaml, StandardCharsets.UTF_8));
+        return config;
     }
 
-    private void loadVariableConfig() {
+    private File variableFile() {
         File variableFile = new File(getDataFolder(), "variable.yml");
         if (!variableFile.exists()) {
             try {
@@ -88,283 +229,22 @@ public final class PlayerHealth extends JavaPlugin implements TabCompleter {
                 // 文件已存在时不报错
             }
         }
-        variableConfig = YamlConfiguration.loadConfiguration(variableFile);
-    }
-
-    private void validateVariables() {
-        if (variableConfig == null) return;
-        
-        // 检查变量功能是否启用
-        if (!variableConfig.getBoolean("enable", true)) {
-            debug(null, "[变量校验] 变量功能已禁用，跳过校验");
-            return;
-        }
-        
-        Set<String> names = new HashSet<>();
-        for (String varName : variableConfig.getKeys(false)) {
-            // 跳过enable配置项
-            if ("enable".equals(varName)) continue;
-            
-            if (!isValidVariableName(varName, names)) continue;
-            
-            String mode = variableConfig.getString(varName + ".mode", "normal");
-            if (!isValidMode(mode, varName)) continue;
-            
-            if (mode.equalsIgnoreCase("normal")) {
-                validateNormalVariable(varName);
-            }
-        }
-    }
-
-    private boolean isValidVariableName(String varName, Set<String> names) {
-        if (varName == null || varName.trim().isEmpty()) {
-            debug(null, "变量名不能为空: " + varName + "，请检查variable.yml配置");
-            return false;
-        }
-        if (!varName.matches("[a-zA-Z0-9_]+")) {
-            debug(null, "变量名不能为特殊字符或空格: " + varName + "，请检查variable.yml配置");
-            return false;
-        }
-        if (varName.matches("\\d+")) {
-            debug(null, "变量名不能为纯数字: " + varName + "，请检查variable.yml配置");
-            return false;
-        }
-        if (names.contains(varName)) {
-            debug(null, "变量名重复: " + varName + "，请检查variable.yml配置");
-            return false;
-        }
-        names.add(varName);
-        return true;
-    }
-
-    private boolean isValidMode(String mode, String varName) {
-        if (!mode.equalsIgnoreCase("normal") && !mode.equalsIgnoreCase("elite")) {
-            debug(null, "变量 " + varName + " 的mode字段无效(仅允许normal/elite): " + mode + "，请检查variable.yml配置");
-            return false;
-        }
-        return true;
-    }
-
-    private void validateNormalVariable(String varName) {
-        List<String> config = variableConfig.getStringList(varName + ".values");
-        double totalWeight = 0;
-
-        for (String line : config) {
-            if (line.startsWith("weight::")) {
-                try {
-                    totalWeight += Double.parseDouble(line.substring(8));
-                } catch (NumberFormatException e) {
-                    debug(null, "变量 " + varName + " 权重格式错误: " + line + "，请检查variable.yml配置");
-                }
-            } else if (line.startsWith("number::")) {
-                validateNumberFormat(line, varName);
-            }
-        }
-        
-        if (Math.abs(totalWeight - 1.0) > 0.0001) {
-            debug(null, "变量 " + varName + " 权重总和不是1.0, 当前: " + totalWeight + "，请检查variable.yml配置");
-        }
-    }
-
-    private void validateNumberFormat(String line, String varName) {
-        String[] parts = line.substring(8).split("_");
-        if (parts.length != 3) {
-            debug(null, "变量 " + varName + " number格式错误: " + line + "，请检查variable.yml配置");
-            return;
-        }
-        try {
-            Double.parseDouble(parts[0]);
-            Double.parseDouble(parts[1]);
-            Integer.parseInt(parts[2]);
-        } catch (NumberFormatException e) {
-            debug(null, "变量 " + varName + " number参数格式错误: " + line + "，请检查variable.yml配置");
-        }
+        return variableFile;
     }
 
-    private String getMessage(String key, Map<String, String> params) {
-        String msg = messageConfig.getString(key, "");
-        if (msg.trim().isEmpty()) return null;
-        
-        for (Map.Entry<String, String> entry : params.entrySet()) {
-            msg = msg.replace("{" + entry.getKey() + "}", entry.getValue());
-        }
-        return LegacyComponentSerializer.legacySection().serialize(LegacyComponentSerializer.legacySection().deserialize(msg));
+    private void sendMessage(CommandSender sender, MessageKey key, String... args) {
+        snapshot.messages().send(sender, key, args);
     }
 
     public String getNumberVar(Player player, String varName) {
-        debug(player, "[变量DEBUG] getNumberVar入口: varName=" + varName + ", player=" + (player == null ? "null" : player.getName()));
-        
-        if (player == null) {
-            debug(null, "[变量解析] 变量: " + varName + "，调用来源: PAPI/外部插件，Player为null，可能是动作插件未正确传递玩家对象。");
-            return "0";
-        }
-        
-        if (variableConfig == null) {
-            debug(player, "[变量解析] 变量: " + varName + "，调用来源: 内部，variableConfig为null");
-            return "0";
-        }
-        
-        // 检查变量功能是否启用
-        if (!variableConfig.getBoolean("enable", true)) {
-            debug(player, "[变量解析] 变量: " + varName + "，调用来源: 内部，变量功能已禁用");
-            return "0";
-        }
-        
-        if (!variableConfig.contains(varName + ".mode")) {
-            debug(player, "[变量解析] 变量: " + varName + "，调用来源: 内部，未配置mode字段，当前配置: " + variableConfig.getConfigurationSection(varName));
-            return "0";
-        }
-        
-        String mode = variableConfig.getString(varName + ".mode", "normal");
-        return mode.equalsIgnoreCase("elite") ? 
-            processEliteVariable(player, varName) : 
-            processNormalVariable(player, varName);
-    }
-
-    private String processEliteVariable(Player player, String varName) {
-        if (!variableConfig.contains(varName + ".prefix")) {
-            debug(player, "[变量解析] 变量: " + varName + "，调用来源: elite，prefix缺失，当前配置: " + variableConfig.getConfigurationSection(varName));
-            return "0";
-        }
-        
-        String prefix = variableConfig.getString(varName + ".prefix");
-        if (prefix == null || prefix.isEmpty()) {
-            debug(player, "[变量解析] 变量: " + varName + "，调用来源: elite，prefix无效，当前配置: " + variableConfig.getConfigurationSection(varName));
-            return "0";
-        }
-        
-        ItemStack item = player.getInventory().getItemInMainHand();
-        if (item.getType().isAir() || !item.hasItemMeta()) {
-            debug(player, "[变量解析] 变量: " + varName + "，调用来源: elite，玩家未持有带有lore的物品，Player: " + player.getName());
-            return "0";
-        }
-        
-        ItemMeta meta = item.getItemMeta();
-        if (!meta.hasLore()) {
-            debug(player, "[变量解析] 变量: " + varName + "，调用来源: elite，物品没有lore，Player: " + player.getName());
-            return "0";
-        }
-        
-        List<Component> loreComponents = meta.lore();
-        if (loreComponents == null || loreComponents.isEmpty()) {
-            debug(player, "[变量解析] 变量: " + varName + "，调用来源: elite，物品lore为空，Player: " + player.getName());
-            return "0";
-        }
-        
-        // 将Component转换为String
-        List<String> lore = new ArrayList<>();
-        for (Component component : loreComponents) {
-            lore.add(LegacyComponentSerializer.legacySection().serialize(component));
-        }
-        
-        return extractNumberFromLore(player, varName, prefix, lore);
-    }
-
-    private String extractNumberFromLore(Player player, String varName, String prefix, List<String> lore) {
-        String prefixNoColor = LegacyComponentSerializer.legacySection().serialize(LegacyComponentSerializer.legacySection().deserialize(prefix));
-        
-        for (int i = 0; i < lore.size(); i++) {
-            String loreLineStr = lore.get(i);
-            String loreNoColor = LegacyComponentSerializer.legacySection().serialize(LegacyComponentSerializer.legacySection().deserialize(loreLineStr));
-            
-            if (loreNoColor.startsWith(prefixNoColor)) {
-                String afterPrefix = loreNoColor.substring(prefixNoColor.length());
-                Matcher m = NUMBER_PATTERN.matcher(afterPrefix);
-                
-                if (m.find()) {
-                    String num = m.group(1);
-                    debug(player, "[变量解析] 变量: " + varName + "，调用来源: elite，物品lore第" + (i+1) + "行前缀后数字读取成功: " + num + "，Player: " + player.getName());
-                    debug(player, "[变量DEBUG] getNumberVar出口: varName=" + varName + ", 返回值=" + num);
-                    return num;
-                } else {
-                    debug(player, "[变量解析] 变量: " + varName + "，调用来源: elite，物品lore第" + (i+1) + "行前缀后未找到数字，lore内容: " + loreLineStr + "，Player: " + player.getName());
-                    debug(player, "[变量DEBUG] getNumberVar出口: varName=" + varName + ", 返回值=0");
-                    return "0";
-                }
-            }
-        }
-        
-        debug(player, "[变量解析] 变量: " + varName + "，调用来源: elite，未找到匹配前缀的lore行: " + prefixNoColor + "，Player: " + player.getName());
-        debug(player, "[变量DEBUG] getNumberVar出口: varName=" + varName + ", 返回值=0");
-        return "0";
-    }
-
-    private String processNormalVariable(Player player, String varName) {
-        List<String> config = variableConfig.getStringList(varName + ".values");
-        if (config.isEmpty()) {
-            debug(player, "[变量解析] 变量: " + varName + "，调用来源: normal，values为空，当前配置: " + variableConfig.getConfigurationSection(varName));
-            debug(player, "[变量DEBUG] getNumberVar出口: varName=" + varName + ", 返回值=0");
-            return "0";
-        }
-        
-        List<RandomNumber> numbers = parseRandomNumbers(config, player, varName);
-        if (numbers.isEmpty()) {
-            debug(player, "[变量解析] 变量: " + varName + "，调用来源: normal，未找到有效number配置，Player: " + player.getName());
-            debug(player, "[变量DEBUG] getNumberVar出口: varName=" + varName + ", 返回值=0");
-            return "0";
-        }
-        
-        return generateRandomValue(numbers, player, varName);
-    }
-
-    private List<RandomNumber> parseRandomNumbers(List<String> config, Player player, String varName) {
-        List<RandomNumber> numbers = new ArrayList<>();
-        
-        for (int i = 0; i < config.size(); i++) {
-            String line = config.get(i);
-            if (line.startsWith("number::")) {
-                String[] parts = line.substring(8).split("_");
-                if (parts.length == 3) {
-                    try {
-                        double min = Double.parseDouble(parts[0]);
-                        double max = Double.parseDouble(parts[1]);
-                        int decimals = Integer.parseInt(parts[2]);
-                        double weight = 1.0;
-                        
-                        if (i + 1 < config.size() && config.get(i + 1).startsWith("weight::")) {
-                            weight = Double.parseDouble(config.get(i + 1).substring(8));
-                            i++;
-                        }
-                        
-                        numbers.add(new RandomNumber(min, max, decimals, weight));
-                    } catch (NumberFormatException e) {
-                        debug(player, "[变量解析] 变量: " + varName + "，调用来源: normal，number/weight参数格式错误: " + line + "，Player: " + player.getName());
-                    }
-                } else {
-                    debug(player, "[变量解析] 变量: " + varName + "，调用来源: normal，number格式错误: " + line + "，Player: " + player.getName());
-                }
-            }
-        }
-        
-        return numbers;
+        return variableResolver.resolve(player, varName);
     }
 
-    private String generateRandomValue(List<RandomNumber> numbers, Player player, String varName) {
-        double totalWeight = numbers.stream().mapToDouble(n -> n.weight).sum();
-        double rand = random.nextDouble() * totalWeight;
-        double currentWeight = 0;
-        
-        for (RandomNumber num : numbers) {
-            currentWeight += num.weight;
-            if (rand <= currentWeight) {
-                double value = num.min + (random.nextDouble() * (num.max - num.min));
-                debug(player, "[变量解析] 变量: " + varName + "，调用来源: normal，随机数生成: " + value + "，Player: " + player.getName());
-                debug(player, "[变量DEBUG] getNumberVar出口: varName=" + varName + ", 返回值=" + value);
-                String format = "%." + num.decimals + "f";
-                return String.format(format, value);
-            }
-        }
-        
-        RandomNumber first = numbers.get(0);
-        double value = first.min + (random.nextDouble() * (first.max - first.min));
-        debug(player, "[变量解析] 变量: " + varName + "，调用来源: normal，默认返回第一个随机数: " + value + "，Player: " + player.getName());
-        debug(player, "[变量DEBUG] getNumberVar出口: varName=" + varName + ", 返回值=" + value);
-        String format = "%." + first.decimals + "f";
-        return String.format(format, value);
+    // 为物品生成roll模式变量的随机结果 已存在时保留原值 供物品生成时调用 同PlayerHealthService#rollItem
+    public boolean rollItem(ItemStack item, String varName) {
+        return variableResolver.rollItem(item, varName);
     }
 
-    private record RandomNumber(double min, double max, int decimals, double weight) {}
-
     public class PlayerHealthExpansion extends PlaceholderExpansion {
         private final PlayerHealth plugin;
         
@@ -394,16 +274,24 @@ public final class PlayerHealth extends JavaPlugin implements TabCompleter {
         
         @Override
         public String onPlaceholderRequest(Player player, String identifier) {
-            debug(player, "[PAPI DEBUG] onPlaceholderRequest: identifier=" + identifier + ", player=" + (player == null ? "null" : player.getName()));
-            debug(player, "[PAPI DEBUG] 扩展标识符: " + getIdentifier() + ", 完整变量格式: %" + getIdentifier() + "_" + identifier + "%");
+            if (!metrics.isEnabled()) return resolvePlaceholder(player, identifier);
+            long start = System.nanoTime();
+            String result = resolvePlaceholder(player, identifier);
+            metrics.recordPlaceholder(System.nanoTime() - start, result != null && result.startsWith("0("));
+            return result;
+        }
+        
+        private String resolvePlaceholder(Player player, String identifier) {
+            debug(player, () -> "[PAPI DEBUG] onPlaceholderRequest: identifier=" + identifier + ", player=" + (player == null ? "null" : player.getName()));
+            debug(player, () -> "[PAPI DEBUG] 扩展标识符: " + getIdentifier() + ", 完整变量格式: %" + getIdentifier() + "_" + identifier + "%");
             
             if (identifier.startsWith("ph_var_")) {
                 String varName = identifier.substring(7);
                 String result = plugin.getNumberVar(player, varName);
-                debug(player, "[PAPI DEBUG] onPlaceholderRequest: varName=" + varName + ", 返回值=" + result);
+                debug(player, () -> "[PAPI DEBUG] onPlaceholderRequest: varName=" + varName + ", 返回值=" + result);
                 
                 if (player == null) {
-                    debug(null, "PlaceholderAPI请求变量 " + varName + " 时Player为null，可能是动作插件未正确传递玩家对象。");
+                    debug(null, () -> "PlaceholderAPI请求变量 " + varName + " 时Player为null，可能是动作插件未正确传递玩家对象。");
                     return "0(变量配置异常,请检查variable.yml)";
                 }
                 
@@ -429,11 +317,15 @@ public final class PlayerHealth extends JavaPlugin implements TabCompleter {
         
         return switch (subCommand) {
             case "reload" -> handleReload(sender);
-            case "give", "set" -> handleHealthCommand(sender, label, args);
+            case "give", "set" -> handleTimedHealthCommand(sender, label, args);
             case "parse" -> {
                 handleParseCommand(sender, label, args);
                 yield true;
             }
+            case "trace" -> handleTraceCommand(sender, args);
+            case "stats" -> handleStatsCommand(sender, args);
+            case "regen" -> handleRegenCommand(sender, label, args);
+            case "audit" -> handleAuditCommand(sender, args);
             default -> {
                 sendUsageMessage(sender, label);
                 yield true;
@@ -442,25 +334,262 @@ public final class PlayerHealth extends JavaPlugin implements TabCompleter {
     }
 
     private void sendUsageMessage(CommandSender sender, String label) {
-        String usageKey = label.equalsIgnoreCase("ph") ? "usage-ph" : "usage-playerhealth";
-        String usageMsg = getMessage(usageKey, new HashMap<>());
-        if (usageMsg != null) {
-            for (String line : usageMsg.split("\\r?\\n")) {
-                if (!line.trim().isEmpty()) sender.sendMessage(line);
+        sendMessage(sender, label.equalsIgnoreCase("ph") ? MessageKey.USAGE_PH : MessageKey.USAGE_PLAYERHEALTH);
+    }
+
+    private boolean handleReload(CommandSender sender) {
+        reloadAsync(sender);
+        return true;
+    }
+
+    // 在异步线程读取和编译配置 完成后一次性替换快照 重载期间占位符继续使用旧快照
+    private void reloadAsync(CommandSender sender) {
+        if (!reloading.compareAndSet(false, true)) {
+            // 当前重载可能读取到保存了一半的文件 结束后按最新内容再重载一次
+            reloadPending.set(true);
+            // 当前重载恰好在设置标记之前结束时由本次调用执行
+            if (!reloading.compareAndSet(false, true)) {
+                if (sender != null) {
+                    sendMessage(sender, MessageKey.RELOAD_IN_PROGRESS);
+                }
+                return;
+            }
+        }
+        
+        scheduler.runAsync(() -> {
+            reloadPending.set(false);
+            boolean success;
+            try {
+                snapshot = loadSnapshot();
+                success = true;
+            } catch (IOException | InvalidConfigurationException | RuntimeException e) {
+                getLogger().log(Level.WARNING, "配置文件重载失败，继续使用旧配置", e);
+                success = false;
+            } finally {
+                reloading.set(false);
+            }
+            
+            boolean reloaded = success;
+            if (!isEnabled()) return;
+            if (reloadPending.getAndSet(false)) reloadAsync(null);
+            scheduler.execute(sender, () -> {
+                if (sender == null) {
+                    if (reloaded) getLogger().info("检测到配置文件变化，message.yml和variable.yml已自动重载");
+                    return;
+                }
+                sendMessage(sender, reloaded ? MessageKey.RELOAD_SUCCESS : MessageKey.RELOAD_FAILED);
+                debug(sender, "message.yml和variable.yml已重载");
+            });
+        });
+    }
+
+    private boolean handleTraceCommand(CommandSender sender, String[] args) {
+        if (!checkPermission(sender, "playerhealth.trace")) return true;
+        String action = args.length > 1 ? args[1].toLowerCase() : "";
+        switch (action) {
+            case "on" -> {
+                debugLog.enableTrace();
+                sendMessage(sender, MessageKey.TRACE_ENABLED);
+            }
+            case "off" -> {
+                debugLog.disableTrace();
+                sendMessage(sender, MessageKey.TRACE_DISABLED);
+            }
+            case "clear" -> {
+                TraceBuffer trace = debugLog.traceBuffer();
+                if (trace != null) trace.clear();
+                sendMessage(sender, MessageKey.TRACE_CLEARED);
             }
+            default -> dumpTraces(sender, action);
         }
+        return true;
     }
 
-    private boolean handleReload(CommandSender sender) {
-        loadMessageConfig();
-        loadVariableConfig();
-        validateVariables();
-        String msg = getMessage("reload-success", new HashMap<>());
-        if (msg != null) sender.sendMessage(msg);
-        debug(sender, "message.yml和variable.yml已重载");
+    private void dumpTraces(CommandSender sender, String limitStr) {
+        TraceBuffer trace = debugLog.traceBuffer();
+        if (trace == null) {
+            sendMessage(sender, MessageKey.TRACE_DISABLED);
+            return;
+        }
+        
+        int limit = 20;
+        if (!limitStr.isEmpty()) {
+            try {
+                limit = Math.max(Integer.parseInt(limitStr), 1);
+            } catch (NumberFormatException e) {
+                sendMessage(sender, MessageKey.ERROR_INVALID_AMOUNT);
+                return;
+            }
+        }
+        
+        List<String> lines = trace.recent(limit);
+        if (lines.isEmpty()) {
+            sendMessage(sender, MessageKey.TRACE_EMPTY);
+            return;
+        }
+        
+        sendMessage(sender, MessageKey.TRACE_HEADER, String.valueOf(lines.size()));
+        for (String line : lines) {
+            sender.sendMessage(line);
+        }
+    }
+
+    private boolean handleStatsCommand(CommandSender sender, String[] args) {
+        if (!metrics.isEnabled()) {
+            sendMessage(sender, MessageKey.STATS_DISABLED);
+            return true;
+        }
+        if (args.length > 1 && args[1].equalsIgnoreCase("reset")) {
+            if (!checkPermission(sender, "playerhealth.stats.reset")) return true;
+            metrics.reset();
+            sendMessage(sender, MessageKey.STATS_RESET);
+            return true;
+        }
+        
+        sendMessage(sender, MessageKey.STATS_HEADER);
+        sender.sendMessage("§7占位符请求: §f" + metrics.getPlaceholderRequests() + " §7异常返回: §f" + metrics.getPlaceholderErrors()
+            + " §7" + formatLatency(metrics.placeholderLatency()));
+        List<Metrics.VariableSummary> hottest = metrics.hottestVariables(10);
+        if (!hottest.isEmpty()) {
+            sender.sendMessage("§7变量解析(调用次数前" + hottest.size() + "):");
+            for (Metrics.VariableSummary variable : hottest) {
+                sender.sendMessage(" §b" + variable.name() + " §7调用 §f" + variable.calls() + " §7返回0 §f" + variable.fallbacks()
+                    + " §7平均 §f" + DecimalFormatter.format(variable.meanMicros(), 1) + "µs §7p99 §f≤" + variable.p99Micros() + "µs");
+            }
+        }
+        sender.sendMessage("§7未配置的变量请求: §f" + metrics.getUnknownVariableCalls());
+        sender.sendMessage("§7精英lore扫描: §f" + metrics.getEliteScans() + " §7" + formatLatency(metrics.eliteScanLatency()));
+        if (!metrics.getSlowestEliteItem().isEmpty()) {
+            sender.sendMessage("§7最慢物品: §f" + metrics.getSlowestEliteItem());
+        }
+        sender.sendMessage("§7give指令: §f" + metrics.getGiveCommands() + " §7set指令: §f" + metrics.getSetCommands()
+            + " §7" + formatLatency(metrics.commandLatency()));
+        return true;
+    }
+
+    // /ph audit [条数] [玩家名] 在异步线程读取审计日志 完成后回到执行者所在的线程发送
+    private boolean handleAuditCommand(CommandSender sender, String[] args) {
+        if (!checkPermission(sender, "playerhealth.audit")) return true;
+        if (auditLog == null) {
+            sendMessage(sender, MessageKey.AUDIT_DISABLED);
+            return true;
+        }
+        
+        int limit = 10;
+        if (args.length > 1) {
+            try {
+                limit = Math.min(Math.max(Integer.parseInt(args[1]), 1), 100);
+            } catch (NumberFormatException e) {
+                sendMessage(sender, MessageKey.ERROR_INVALID_AMOUNT);
+                return true;
+            }
+        }
+        
+        String name = args.length > 2 ? args[2] : null;
+        int max = limit;
+        AuditLog log = auditLog;
+        scheduler.runAsync(() -> {
+            List<AuditLog.Entry> entries = log.recent(name, max);
+            if (!isEnabled()) return;
+            scheduler.execute(sender, () -> {
+                if (entries.isEmpty()) {
+                    sendMessage(sender, MessageKey.AUDIT_EMPTY);
+                    return;
+                }
+                sendMessage(sender, MessageKey.AUDIT_HEADER, String.valueOf(entries.size()));
+                for (AuditLog.Entry entry : entries) {
+                    sender.sendMessage("§7" + AUDIT_TIME.format(Instant.ofEpochMilli(entry.time())) + " §f" + entry.sender()
+                        + " §b" + (entry.give() ? "give" : "set") + " §f" + entry.target() + " §7" + DecimalFormatter.format(entry.before(), 1)
+                        + " → §f" + DecimalFormatter.format(entry.after(), 1));
+                }
+            });
+        });
+        return true;
+    }
+
+    // 没有权限时发送提示并返回false
+    private boolean checkPermission(CommandSender sender, String permission) {
+        if (sender.hasPermission(permission)) return true;
+        sendMessage(sender, MessageKey.ERROR_NO_PERMISSION);
+        debug(sender, () -> "Missing permission: " + permission);
+        return false;
+    }
+
+    private String formatLatency(LatencyHistogram latency) {
+        return "平均 §f" + DecimalFormatter.format(latency.meanMicros(), 1) + "µs §7p50 §f≤" + latency.percentileMicros(0.5)
+            + "µs §7p99 §f≤" + latency.percentileMicros(0.99) + "µs §7最大 §f" + latency.maxMicros() + "µs";
+    }
+
+    private boolean handleRegenCommand(CommandSender sender, String label, String[] args) {
+        if (args.length < 4) {
+            sendUsageMessage(sender, label);
+            return true;
+        }
+        
+        String targetName = args[1];
+        String amountStr = args[2];
+        String secondsStr = args[3];
+        // NaN和无穷大会一直留在时间轮里 每次结算都产生无效的生命值
+        double amount = healthCommands.parseAmount(sender, "regen", amountStr);
+        if (Double.isNaN(amount)) return true;
+        if (amount <= 0) {
+            sendMessage(sender, MessageKey.ERROR_INVALID_AMOUNT);
+            debug(sender, () -> "Invalid regen amount: " + amountStr);
+            return true;
+        }
+        int duration;
+        try {
+            duration = Integer.parseInt(secondsStr);
+        } catch (NumberFormatException e) {
+            sendMessage(sender, MessageKey.ERROR_INVALID_DURATION);
+            debug(sender, () -> "Invalid regen duration: " + secondsStr);
+            return true;
+        }
+        if (duration <= 0) {
+            sendMessage(sender, MessageKey.ERROR_INVALID_DURATION);
+            debug(sender, () -> "Invalid regen duration: " + secondsStr);
+            return true;
+        }
+        
+        String amountText = String.valueOf((int) amount);
+        String secondsText = String.valueOf(duration);
+        if (TargetSelector.isSelector(targetName)) {
+            if (!checkPermission(sender, "playerhealth.mass")) return true;
+            List<Player> targets = TargetSelector.select(sender, targetName, scheduler.isFoliaServer());
+            if (targets == null || targets.isEmpty()) {
+                sendMessage(sender, targets == null ? MessageKey.ERROR_INVALID_SELECTOR : MessageKey.ERROR_PLAYER_NOT_FOUND, targetName);
+                return true;
+            }
+            // 时间轮只在全局区域线程修改
+            scheduler.executeGlobal(() -> {
+                for (Player target : targets) regenEngine.apply(target, amount, duration);
+            });
+            for (Player target : targets) {
+                sendMessage(target, MessageKey.REGEN_RECEIVE, amountText, secondsText);
+            }
+            sendMessage(sender, MessageKey.REGEN_SUCCESS_MASS, String.valueOf(targets.size()), amountText, secondsText);
+        } else {
+            Player target = Bukkit.getPlayerExact(targetName);
+            if (target == null) {
+                sendMessage(sender, MessageKey.ERROR_PLAYER_NOT_FOUND, targetName);
+                return true;
+            }
+            scheduler.executeGlobal(() -> regenEngine.apply(target, amount, duration));
+            sendMessage(sender, MessageKey.REGEN_SUCCESS, target.getName(), amountText, secondsText);
+            sendMessage(target, MessageKey.REGEN_RECEIVE, amountText, secondsText);
+        }
+        debug(sender, () -> "Regen applied: target=" + targetName + ", amount=" + amount + ", seconds=" + secondsStr + ", active=" + regenEngine.activeEffects());
         return true;
     }
 
+    private boolean handleTimedHealthCommand(CommandSender sender, String label, String[] args) {
+        if (!metrics.isEnabled()) return handleHealthCommand(sender, label, args);
+        long start = System.nanoTime();
+        boolean handled = handleHealthCommand(sender, label, args);
+        metrics.recordCommand(args[0].equalsIgnoreCase("give"), System.nanoTime() - start);
+        return handled;
+    }
+
     private boolean handleHealthCommand(CommandSender sender, String label, String[] args) {
         if (args.length < 3) {
             sendUsageMessage(sender, label);
@@ -471,91 +600,145 @@ public final class PlayerHealth extends JavaPlugin implements TabCompleter {
         String targetName = args[1];
         String amountStr = args[2];
         
+        if (TargetSelector.isSelector(targetName)) {
+            return handleMassHealthCommand(sender, subCommand, targetName, amountStr);
+        }
+        
         Player target = Bukkit.getPlayerExact(targetName);
         if (target == null) {
-            Map<String, String> params = new HashMap<>();
-            params.put("target", targetName);
-            String msg = getMessage("error-player-not-found", params);
-            if (msg != null) sender.sendMessage(msg);
-            debug(sender, "Player not found: " + targetName);
+            sendMessage(sender, MessageKey.ERROR_PLAYER_NOT_FOUND, targetName);
+            debug(sender, () -> "Player not found: " + targetName);
             return true;
         }
         
-        double amount;
-        try {
-            amount = Double.parseDouble(amountStr);
-        } catch (NumberFormatException e) {
-            String msg = getMessage("error-invalid-amount", new HashMap<>());
-            if (msg != null) sender.sendMessage(msg);
-            debug(sender, "Invalid amount: " + amountStr);
-            return true;
-        }
+        double amount = healthCommands.parseAmount(sender, subCommand, amountStr);
+        if (Double.isNaN(amount)) return true;
         
         return processHealthCommand(sender, target, subCommand, amount);
     }
 
-    private boolean processHealthCommand(CommandSender sender, Player target, String subCommand, double amount) {
-        var attribute = target.getAttribute(Attribute.GENERIC_MAX_HEALTH);
-        double maxHealth = attribute != null ? attribute.getValue() : 20.0;
+    private boolean handleMassHealthCommand(CommandSender sender, String subCommand, String selector, String amountStr) {
+        if (!checkPermission(sender, "playerhealth.mass")) return true;
+        double amount = healthCommands.parseAmount(sender, subCommand, amountStr);
+        if (Double.isNaN(amount)) return true;
         
-        if (subCommand.equalsIgnoreCase("give")) {
-            return handleGiveCommand(sender, target, amount, maxHealth);
-        } else if (subCommand.equalsIgnoreCase("set")) {
-            handleSetCommand(sender, target, amount, maxHealth);
+        List<Player> targets = TargetSelector.select(sender, selector, scheduler.isFoliaServer());
+        if (targets == null || targets.isEmpty()) {
+            sendMessage(sender, targets == null ? MessageKey.ERROR_INVALID_SELECTOR : MessageKey.ERROR_PLAYER_NOT_FOUND, selector);
+            debug(sender, () -> "No players matched selector: " + selector);
             return true;
         }
         
-        return false;
+        boolean give = subCommand.equalsIgnoreCase("give");
+        String amountText = String.valueOf((int) amount);
+        MessageKey receive = give ? MessageKey.GIVE_RECEIVE : MessageKey.SET_RECEIVE;
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(targets.size());
+        // Folia下各目标在所在区域的线程并行结算 最后一个目标结算后发送汇总
+        Runnable finish = () -> {
+            if (remaining.decrementAndGet() > 0) return;
+            scheduler.execute(sender, () -> sendMessage(sender, give ? MessageKey.GIVE_SUCCESS_MASS : MessageKey.SET_SUCCESS_MASS,
+                String.valueOf(applied.get()), amountText, String.valueOf(skipped.get())));
+            debug(sender, () -> "Mass " + subCommand + " finished: selector=" + selector + ", applied=" + applied.get() + ", skipped=" + skipped.get());
+        };
+        
+        scheduler.executeGlobal(() -> massExecutor.submit(targets, target -> scheduler.execute(target, () -> {
+            try {
+                if (!target.isOnline()) return;
+                double maxHealth = HealthService.maxHealth(target);
+                double before = target.getHealth();
+                double newHealth;
+                if (give) {
+                    newHealth = HealthService.applyHeal(target, amount, maxHealth);
+                } else if (amount > maxHealth) {
+                    skipped.incrementAndGet();
+                    return;
+                } else {
+                    newHealth = amount;
+                    target.setHealth(newHealth);
+                }
+                applied.incrementAndGet();
+                healthCommands.audit(sender, target, give, before, newHealth);
+                sendMessage(target, receive, amountText, String.valueOf((int) newHealth), String.valueOf((int) maxHealth));
+            } finally {
+                finish.run();
+            }
+        }, finish), () -> debug(sender, () -> "Mass " + subCommand + " dispatched: selector=" + selector)));
+        debug(sender, () -> "Mass " + subCommand + " queued: selector=" + selector + ", targets=" + targets.size());
+        return true;
     }
 
-    private boolean handleGiveCommand(CommandSender sender, Player target, double amount, double maxHealth) {
-        double health = target.getHealth();
-        double newHealth = Math.min(health + amount, maxHealth);
-        target.setHealth(newHealth);
-        
-        Map<String, String> paramsSender = new HashMap<>();
-        paramsSender.put("target", target.getName());
-        paramsSender.put("amount", String.valueOf((int)amount));
-        String msgSender = getMessage("give-success", paramsSender);
-        if (msgSender != null) sender.sendMessage(msgSender);
+    private boolean processHealthCommand(CommandSender sender, Player target, String subCommand, double amount) {
+        if (healthBuffer != null) {
+            return queueHealthCommand(sender, target, subCommand, amount);
+        }
         
-        Map<String, String> paramsTarget = new HashMap<>();
-        paramsTarget.put("amount", String.valueOf((int)amount));
-        paramsTarget.put("health", String.valueOf((int)newHealth));
-        paramsTarget.put("max_health", String.valueOf((int)maxHealth));
-        String msgTarget = getMessage("give-receive", paramsTarget);
-        if (msgTarget != null) target.sendMessage(msgTarget);
+        boolean give = subCommand.equalsIgnoreCase("give");
+        if (!give && !subCommand.equalsIgnoreCase("set")) return false;
         
-        debug(sender, "Gave health: " + amount + " to " + target.getName());
+        // 在目标玩家所在的线程修改生命值 普通Paper上立即执行
+        scheduler.execute(target, () -> {
+            double maxHealth = HealthService.maxHealth(target);
+            if (give) {
+                healthCommands.give(sender, target, amount, maxHealth);
+            } else {
+                healthCommands.set(sender, target, amount, maxHealth);
+            }
+        }, () -> sendMessage(sender, MessageKey.ERROR_PLAYER_NOT_FOUND, target.getName()));
+        return true;
+    }
+
+    // 最大生命值的读取和校验推迟到结算时进行
+    private boolean queueHealthCommand(CommandSender sender, Player target, String subCommand, double amount) {
+        if (subCommand.equalsIgnoreCase("give")) {
+            healthBuffer.give(sender, target, amount);
+        } else if (subCommand.equalsIgnoreCase("set")) {
+            healthBuffer.set(sender, target, amount);
+        } else {
+            return false;
+        }
+        debug(sender, () -> "Queued " + subCommand + ": " + amount + " for " + target.getName());
         return true;
     }
 
-    private void handleSetCommand(CommandSender sender, Player target, double amount, double maxHealth) {
-        if (amount > maxHealth) {
-            Map<String, String> params = new HashMap<>();
-            params.put("max_health", String.valueOf((int)maxHealth));
-            String msg = getMessage("error-exceed-max", params);
-            if (msg != null) sender.sendMessage(msg);
-            debug(sender, "Set amount exceeds max health: " + amount + "/" + maxHealth);
+    // 一名玩家在上一tick内的give/set已合并结算 执行者各自收到结果 目标只收到一条提示
+    private void applyMutations(HealthMutationBuffer.Batch batch) {
+        Player target = batch.target();
+        if (!target.isOnline()) {
+            for (HealthMutationBuffer.Mutation mutation : batch.mutations()) {
+                sendMessage(mutation.sender(), MessageKey.ERROR_PLAYER_NOT_FOUND, target.getName());
+            }
             return;
         }
         
-        target.setHealth(amount);
-        
-        Map<String, String> paramsSender = new HashMap<>();
-        paramsSender.put("target", target.getName());
-        paramsSender.put("amount", String.valueOf((int)amount));
-        String msgSender = getMessage("set-success", paramsSender);
-        if (msgSender != null) sender.sendMessage(msgSender);
-        
-        Map<String, String> paramsTarget = new HashMap<>();
-        paramsTarget.put("amount", String.valueOf((int)amount));
-        paramsTarget.put("health", String.valueOf((int)amount));
-        paramsTarget.put("max_health", String.valueOf((int)maxHealth));
-        String msgTarget = getMessage("set-receive", paramsTarget);
-        if (msgTarget != null) target.sendMessage(msgTarget);
+        String maxText = String.valueOf((int) batch.maxHealth());
+        HealthMutationBuffer.Mutation last = null;
+        int applied = 0;
+        for (HealthMutationBuffer.Mutation mutation : batch.mutations()) {
+            if (mutation.rejected()) {
+                sendMessage(mutation.sender(), MessageKey.ERROR_EXCEED_MAX, maxText);
+                debug(mutation.sender(), () -> "Set amount exceeds max health: " + mutation.amount() + "/" + batch.maxHealth());
+                continue;
+            }
+            String amountText = String.valueOf((int) mutation.amount());
+            sendMessage(mutation.sender(), mutation.give() ? MessageKey.GIVE_SUCCESS : MessageKey.SET_SUCCESS, target.getName(), amountText);
+            healthCommands.audit(mutation.sender(), target, mutation.give(), mutation.before(), mutation.after());
+            last = mutation;
+            applied++;
+        }
         
-        debug(sender, "Set health: " + amount + " for " + target.getName());
+        String healthText = String.valueOf((int) batch.after());
+        if (applied == 1) {
+            sendMessage(target, last.give() ? MessageKey.GIVE_RECEIVE : MessageKey.SET_RECEIVE,
+                String.valueOf((int) last.amount()), healthText, maxText);
+        } else if (applied > 1) {
+            sendMessage(target, MessageKey.HEALTH_RECEIVE_COMBINED, String.valueOf(applied),
+                DecimalFormatter.format(batch.after() - batch.before(), 1), healthText, maxText);
+        }
+        int count = applied;
+        debug(null, () -> "Health mutations flushed: target=" + target.getName() + ", applied=" + count + "/" + batch.mutations().size()
+            + ", health=" + batch.before() + " -> " + batch.after());
     }
 
     private void handleParseCommand(CommandSender sender, String label, String[] args) {
@@ -565,66 +748,36 @@ public final class PlayerHealth extends JavaPlugin implements TabCompleter {
         }
 
         String varName = args[1];
-        if (!variableConfig.contains(varName)) {
-            String msg = getMessage("error-variable-not-found", new HashMap<>());
-            if (msg != null) sender.sendMessage(msg);
-            debug(sender, "Variable not found: " + varName);
+        // 使用当前生效的编译结果 与占位符解析一致 修改variable.yml后需要重载才会反映
+        VariableRegistry registry = snapshot.registry();
+        VariableDefinition definition = registry.isEnabled() ? registry.get(varName) : null;
+        if (definition == null) {
+            sendMessage(sender, MessageKey.ERROR_VARIABLE_NOT_FOUND);
+            debug(sender, () -> "Variable not found or failed validation: " + varName);
             return;
         }
 
-        String mode = variableConfig.getString(varName + ".mode", "normal");
-        if (!mode.equalsIgnoreCase("normal")) {
-            String msg = getMessage("error-variable-not-normal", new HashMap<>());
-            if (msg != null) sender.sendMessage(msg);
-            debug(sender, "Variable " + varName + " is not a normal variable.");
+        if (definition.mode() != VariableMode.NORMAL) {
+            sendMessage(sender, MessageKey.ERROR_VARIABLE_NOT_NORMAL);
+            debug(sender, () -> "Variable " + varName + " is not a normal variable.");
             return;
         }
 
-        List<String> values = variableConfig.getStringList(varName + ".values");
-        if (values.isEmpty()) {
-            String msg = getMessage("error-variable-values-empty", new HashMap<>());
-            if (msg != null) sender.sendMessage(msg);
-            debug(sender, "Variable " + varName + " has no values configured.");
+        if (definition.numbers().isEmpty()) {
+            sendMessage(sender, MessageKey.ERROR_VARIABLE_VALUES_EMPTY);
+            debug(sender, () -> "Variable " + varName + " has no values configured.");
             return;
         }
 
-        debug(sender, "Parsing variable: " + varName);
-        for (String line : values) {
-            if (line.startsWith("number::")) {
-                String[] parts = line.substring(8).split("_");
-                if (parts.length == 3) {
-                    try {
-                        double min = Double.parseDouble(parts[0]);
-                        double max = Double.parseDouble(parts[1]);
-                        int decimals = Integer.parseInt(parts[2]);
-                        double weight = 1.0;
-                        
-                        if (line.contains("weight::")) {
-                            int weightIndex = values.indexOf(line) + 1;
-                            if (weightIndex < values.size() && values.get(weightIndex).startsWith("weight::")) {
-                                weight = Double.parseDouble(values.get(weightIndex).substring(8));
-                            }
-                        }
-                        
-                        debug(sender, "Parsed number: min=" + min + ", max=" + max + ", decimals=" + decimals + ", weight=" + weight);
-                    } catch (NumberFormatException e) {
-                        debug(sender, "Error parsing number line: " + line + " - " + e.getMessage());
-                    }
-                } else {
-                    debug(sender, "Error parsing number line: " + line + " - Invalid format.");
-                }
-            } else if (line.startsWith("weight::")) {
-                try {
-                    double weight = Double.parseDouble(line.substring(8));
-                    debug(sender, "Parsed weight: " + weight);
-                } catch (NumberFormatException e) {
-                    debug(sender, "Error parsing weight line: " + line + " - " + e.getMessage());
-                }
-            }
+        debug(sender, () -> "Parsing variable: " + varName);
+        for (RandomNumber number : definition.numbers()) {
+            debug(sender, () -> "Parsed number: min=" + number.min() + ", max=" + number.max() + ", decimals=" + number.decimals() + ", weight=" + number.weight());
+        }
+        if (definition.pool() != null) {
+            debug(sender, () -> "Value pool: capacity=" + definition.pool().capacity() + ", refill-below=" + definition.pool().refillBelow() + ", available=" + definition.pool().available());
         }
-        String msg = getMessage("parse-success", new HashMap<>());
-        if (msg != null) sender.sendMessage(msg);
-        debug(sender, "Variable " + varName + " parsed successfully.");
+        sendMessage(sender, MessageKey.PARSE_SUCCESS);
+        debug(sender, () -> "Variable " + varName + " parsed successfully.");
     }
 
     @Override
@@ -632,7 +785,7 @@ public final class PlayerHealth extends JavaPlugin implements TabCompleter {
         List<String> completions = new ArrayList<>();
         
         if (args.length == 1) {
-            List<String> subCommands = Arrays.asList("give", "set", "reload", "parse");
+            List<String> subCommands = Arrays.asList("give", "set", "reload", "parse", "trace", "stats", "regen", "audit");
             for (String sub : subCommands) {
                 if (sub.startsWith(args[0].toLowerCase())) {
                     completions.add(sub);
@@ -642,53 +795,85 @@ public final class PlayerHealth extends JavaPlugin implements TabCompleter {
         }
         
         if (args.length == 2) {
-            if (args[0].equalsIgnoreCase("parse")) {
+            if (args[0].equalsIgnoreCase("trace")) {
+                for (String action : Arrays.asList("on", "off", "clear")) {
+                    if (action.startsWith(args[1].toLowerCase())) completions.add(action);
+                }
+                return completions;
+            } else if (args[0].equalsIgnoreCase("stats")) {
+                if ("reset".startsWith(args[1].toLowerCase())) completions.add("reset");
+                return completions;
+            } else if (args[0].equalsIgnoreCase("parse")) {
                 return getVariableCompletions(args[1]);
+            } else if (args[0].equalsIgnoreCase("audit")) {
+                return completions;
             } else {
                 return getPlayerCompletions(args[1]);
             }
         }
         
+        if (args.length == 3 && args[0].equalsIgnoreCase("audit")) {
+            return playerNames.index().complete(args[2], MAX_COMPLETIONS);
+        }
+        
         return Collections.emptyList();
     }
 
     private List<String> getVariableCompletions(String input) {
-        List<String> completions = new ArrayList<>();
-        if (variableConfig != null) {
-            for (String varName : variableConfig.getKeys(false)) {
-                if (varName.toLowerCase().startsWith(input.toLowerCase())) {
-                    completions.add(varName);
-                }
-            }
-        }
-        return completions;
+        return snapshot.variableNames().complete(input, MAX_COMPLETIONS);
     }
 
     private List<String> getPlayerCompletions(String input) {
         List<String> completions = new ArrayList<>();
-        for (Player p : Bukkit.getOnlinePlayers()) {
-            if (p.getName().toLowerCase().startsWith(input.toLowerCase())) {
-                completions.add(p.getName());
+        if (TargetSelector.isSelector(input)) {
+            for (String selector : TargetSelector.EXAMPLES) {
+                if (scheduler.isFoliaServer() && selector.equals("@r:")) continue;
+                if (selector.startsWith(input.toLowerCase())) completions.add(selector);
             }
+            return completions;
         }
-        return completions;
+        return playerNames.index().complete(input, MAX_COMPLETIONS);
     }
 
     private void debug(CommandSender sender, String msg) {
-        if (debug) {
-            if (sender != null) {
-                sender.sendMessage(LegacyComponentSerializer.legacySection().serialize(LegacyComponentSerializer.legacySection().deserialize("§e[DEBUG] " + msg)));
-            } else {
-                getLogger().info("[DEBUG] " + LegacyComponentSerializer.legacySection().serialize(LegacyComponentSerializer.legacySection().deserialize(msg)));
-            }
-        }
+        debugLog.log(sender, msg);
+    }
+
+    private void debug(CommandSender sender, Supplier<String> msg) {
+        debugLog.log(sender, msg);
     }
 
     @Override
     public void onDisable() {
+        if (configWatcher != null) {
+            configWatcher.stop();
+        }
+        if (healthBuffer != null) {
+            healthBuffer.flushAll();
+        }
+        if (massExecutor != null) {
+            massExecutor.shutdown();
+        }
+        if (regenEngine != null) {
+            regenEngine.shutdown();
+        }
+        if (auditLog != null) {
+            auditLog.stop();
+        }
+        if (poolRefiller != null) {
+            poolRefiller.stop();
+        }
         if (expansion != null) {
             expansion.unregister();
         }
+        Bukkit.getServicesManager().unregisterAll(this);
+        if (metricsName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(metricsName);
+            } catch (JMException ignore) {
+                // 已被注销时不报错
+            }
+        }
         System.out.println("§c插件已关闭");
         System.out.println("§a作者: §f" + AUTHOR);
         System.out.println("§aQQ: §f" + QQ);
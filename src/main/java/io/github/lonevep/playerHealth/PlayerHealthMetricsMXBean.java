@@ -0,0 +1,36 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.Map;
+
+// 通过JMX(jconsole/VisualVM等)查看的运行统计 耗时单位均为微秒
+public interface PlayerHealthMetricsMXBean {
+    long getPlaceholderRequests();
+
+    long getPlaceholderErrors();
+
+    double getPlaceholderMeanMicros();
+
+    long getPlaceholderP99Micros();
+
+    Map<String, Long> getVariableCalls();
+
+    Map<String, Long> getVariableFallbacks();
+
+    Map<String, Long> getVariableP99Micros();
+
+    long getUnknownVariableCalls();
+
+    long getEliteScans();
+
+    long getEliteScanP99Micros();
+
+    String getSlowestEliteItem();
+
+    long getGiveCommands();
+
+    long getSetCommands();
+
+    long getCommandP99Micros();
+
+    void reset();
+}
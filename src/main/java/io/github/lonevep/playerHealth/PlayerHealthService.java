@@ -0,0 +1,39 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.Collection;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+// 供其他插件使用的类型化接口 通过ServicesManager获取:
+// Bukkit.getServicesManager().load(PlayerHealthService.class)
+// 变量直接返回数值 不经过PlaceholderAPI和字符串解析 生命值相关方法和rollHeldItem只能在主线程调用(Folia下为玩家所在区域的线程)
+public interface PlayerHealthService {
+
+    // 变量已配置且通过校验时返回true
+    boolean hasVariable(String name);
+
+    // 结果与%ph_var_变量名%一致(按配置的小数位舍入) 变量不存在或解析失败时返回fallback
+    double resolveVariable(Player player, String name, double fallback);
+
+    // 依次解析names中的变量并写入results的相同下标 results长度不能小于names
+    void resolveVariables(Player player, String[] names, double[] results, double fallback);
+
+    // 为roll模式变量随机一次并保存到物品中 已保存过时保留原值 供物品生成时调用
+    // item不能已放入玩家背包 变量不存在、不是roll模式或物品为空时返回false
+    boolean rollItem(ItemStack item, String name);
+
+    // 同rollItem 作用于玩家的主手物品
+    boolean rollHeldItem(Player player, String name);
+
+    // 恢复生命值 不超过最大生命值 返回恢复后的生命值 amount为NaN/Infinity时不修改
+    double heal(Player player, double amount);
+
+    // 设置生命值 为负数、NaN/Infinity或超过最大生命值时不修改并返回false
+    boolean setHealth(Player player, double health);
+
+    // 批量恢复生命值 跳过已离线的玩家 返回实际处理的玩家数量 amount为NaN/Infinity时返回0
+    int healAll(Collection<? extends Player> players, double amount);
+
+    // 批量设置生命值 跳过已离线和最大生命值不足的玩家 返回实际处理的玩家数量 health无效时返回0
+    int setHealthAll(Collection<? extends Player> players, double health);
+}
@@ -0,0 +1,35 @@
+package io.github.lonevep.playerHealth;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+// 在线玩家名称的前缀索引 通过加入/退出事件维护 Tab补全时不再遍历所有在线玩家
+final class PlayerNameIndex implements Listener {
+    private final PrefixIndex index = new PrefixIndex();
+
+    // 插件重载时服务器中可能已有在线玩家
+    PlayerNameIndex() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            index.add(player.getName());
+        }
+    }
+
+    PrefixIndex index() {
+        return index;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        index.add(event.getPlayer().getName());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        index.remove(event.getPlayer().getName());
+    }
+}
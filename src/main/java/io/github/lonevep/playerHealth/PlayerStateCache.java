@@ -0,0 +1,45 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bukkit.attribute.Attribute;
+import org.bukkit.attribute.AttributeInstance;
+import org.bukkit.entity.Player;
+
+// expr变量在异步线程求值时读取的玩家状态快照 只能在玩家所在的线程读取生命值和属性
+// 与手持物品快照相同 被异步线程查询过的玩家由玩家所在的线程定时刷新 首次查询时尚无快照
+final class PlayerStateCache {
+    // 玩家没有的属性保存为NaN 未保存的属性(重载后新引用的属性)不在attributes中
+    record State(double health, int level, int food, Map<Attribute, Double> attributes) {}
+
+    private final Map<UUID, State> states = new ConcurrentHashMap<>();
+    private final Set<UUID> asyncReaders = ConcurrentHashMap.newKeySet();
+
+    // 尚未保存过快照时返回null
+    State snapshot(UUID id) {
+        asyncReaders.add(id);
+        return states.get(id);
+    }
+
+    Set<UUID> asyncReaders() {
+        return asyncReaders;
+    }
+
+    // 仅在玩家所在的线程调用
+    void refresh(Player player, Set<Attribute> attributes) {
+        Map<Attribute, Double> values = new HashMap<>();
+        for (Attribute attribute : attributes) {
+            AttributeInstance instance = player.getAttribute(attribute);
+            values.put(attribute, instance != null ? instance.getValue() : Double.NaN);
+        }
+        states.put(player.getUniqueId(), new State(player.getHealth(), player.getLevel(), player.getFoodLevel(), values));
+    }
+
+    void invalidate(UUID id) {
+        states.remove(id);
+        asyncReaders.remove(id);
+    }
+}
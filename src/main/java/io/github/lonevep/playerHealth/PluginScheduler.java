@@ -0,0 +1,98 @@
+package io.github.lonevep.playerHealth;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+// 区分普通Paper和Folia(区域多线程)的任务调度
+// Folia没有唯一的主线程 读取背包、修改生命值和发送提示必须在玩家所在区域的线程上执行 插件自身的定时任务在全局区域线程执行
+// 普通Paper上全局区域线程和所有玩家所在的线程都是主线程 行为与直接使用Bukkit调度器相同
+final class PluginScheduler {
+    private final Plugin plugin;
+    private final boolean folia;
+
+    // 可取消的定时任务
+    interface Task {
+        void cancel();
+    }
+
+    PluginScheduler(Plugin plugin) {
+        this.plugin = plugin;
+        this.folia = isFolia();
+    }
+
+    private static boolean isFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    boolean isFoliaServer() {
+        return folia;
+    }
+
+    // 当前线程能否直接访问该实体
+    boolean ownsEntity(Entity entity) {
+        return folia ? Bukkit.isOwnedByCurrentRegion(entity) : Bukkit.isPrimaryThread();
+    }
+
+    // 在实体所在的线程执行 当前线程已拥有该实体时立即执行
+    // 实体已被移除时执行retired(可为null)
+    void execute(Entity entity, Runnable task, Runnable retired) {
+        if (ownsEntity(entity)) {
+            task.run();
+        } else {
+            schedule(entity, task, retired);
+        }
+    }
+
+    // 下一tick在实体所在的线程执行
+    void schedule(Entity entity, Runnable task, Runnable retired) {
+        if (!folia) {
+            Bukkit.getScheduler().runTask(plugin, task);
+        } else if (!entity.getScheduler().execute(plugin, task, retired, 1L) && retired != null) {
+            // 实体已被移除时不会调用retired
+            retired.run();
+        }
+    }
+
+    // 执行者是玩家时在其所在的线程执行 控制台等在全局区域线程执行
+    void execute(CommandSender sender, Runnable task) {
+        if (sender instanceof Entity entity) {
+            execute(entity, task, null);
+        } else {
+            executeGlobal(task);
+        }
+    }
+
+    // 在全局区域线程执行 当前线程就是全局区域线程时立即执行
+    void executeGlobal(Runnable task) {
+        if (folia ? Bukkit.isGlobalTickThread() : Bukkit.isPrimaryThread()) {
+            task.run();
+        } else if (folia) {
+            Bukkit.getGlobalRegionScheduler().execute(plugin, task);
+        } else {
+            Bukkit.getScheduler().runTask(plugin, task);
+        }
+    }
+
+    // 在全局区域线程定时执行 delay至少为1tick
+    Task runGlobalTimer(Runnable task, long delay, long period) {
+        if (folia) {
+            return Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, scheduled -> task.run(), Math.max(delay, 1L), period)::cancel;
+        }
+        return Bukkit.getScheduler().runTaskTimer(plugin, task, delay, period)::cancel;
+    }
+
+    void runAsync(Runnable task) {
+        if (folia) {
+            Bukkit.getAsyncScheduler().runNow(plugin, scheduled -> task.run());
+        } else {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, task);
+        }
+    }
+}
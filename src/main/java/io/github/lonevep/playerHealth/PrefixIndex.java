@@ -0,0 +1,46 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// 按小写名称排序的前缀索引 用于Tab补全 查询只访问匹配前缀的区间
+// 键为"小写名称\0原名称" 仅大小写不同的名称可以同时存在
+// 可在任意线程修改和查询 Folia下加入/退出事件和Tab补全可能在不同区域的线程同时执行
+final class PrefixIndex {
+    static final PrefixIndex EMPTY = new PrefixIndex();
+
+    private final NavigableMap<String, String> entries = new ConcurrentSkipListMap<>();
+
+    static PrefixIndex of(Collection<String> names) {
+        PrefixIndex index = new PrefixIndex();
+        for (String name : names) index.add(name);
+        return index;
+    }
+
+    void add(String name) {
+        entries.put(key(name), name);
+    }
+
+    void remove(String name) {
+        entries.remove(key(name));
+    }
+
+    // 返回以prefix开头(不区分大小写)的名称 最多limit个 按字母顺序排列
+    List<String> complete(String prefix, int limit) {
+        String lower = prefix.toLowerCase(Locale.ROOT);
+        List<String> result = new ArrayList<>(Math.min(limit, 16));
+        for (String name : entries.subMap(lower, true, lower + Character.MAX_VALUE, false).values()) {
+            if (result.size() >= limit) break;
+            result.add(name);
+        }
+        return result;
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT) + '\0' + name;
+    }
+}
@@ -0,0 +1,3 @@
+package io.github.lonevep.playerHealth;
+
+record RandomNumber(double min, double max, int decimals, double weight) {}
@@ -0,0 +1,31 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+// 每个线程独立的随机数源 避免共享Random的CAS竞争
+// 配置random-seed后使用可复现的SplittableRandom 仅用于测试
+final class RandomSource {
+    static final RandomSource UNSEEDED = new RandomSource(null);
+
+    private final SplittableRandom root;
+    private final ThreadLocal<SplittableRandom> seeded;
+
+    private RandomSource(SplittableRandom root) {
+        this.root = root;
+        this.seeded = root == null ? null : ThreadLocal.withInitial(this::split);
+    }
+
+    static RandomSource seeded(long seed) {
+        return new RandomSource(new SplittableRandom(seed));
+    }
+
+    RandomGenerator current() {
+        return seeded == null ? ThreadLocalRandom.current() : seeded.get();
+    }
+
+    private synchronized SplittableRandom split() {
+        return root.split();
+    }
+}
@@ -0,0 +1,192 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.bukkit.entity.Player;
+
+// 持续恢复生命值 所有效果共用一个每tick执行的定时任务和一个时间轮
+// 效果按下标保存在并行的基本类型数组中 同一槽位的效果通过next数组串成链表 释放的下标放入空闲链表复用
+// 仅在全局区域线程使用(普通Paper上即主线程) 没有效果时自动停止定时任务
+// 恢复生命值转到玩家所在的线程执行 Folia下不同区域的玩家可以并行结算
+final class RegenEngine {
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    // 同一玩家已有效果时新效果的处理方式
+    enum Stacking {
+        // 多个效果同时生效
+        STACK,
+        // 新效果替换旧效果
+        REPLACE,
+        // 剩余恢复量与新效果合并 持续时间取两者中较长的
+        EXTEND;
+
+        static Stacking fromConfig(String value) {
+            for (Stacking stacking : values()) {
+                if (stacking.name().equalsIgnoreCase(value)) return stacking;
+            }
+            return STACK;
+        }
+    }
+
+    private final PluginScheduler scheduler;
+    private final int interval;
+    private final Stacking stacking;
+    private final int[] wheel = new int[WHEEL_SIZE];
+    // 非STACK模式下每个玩家对应的效果下标
+    private final Map<UUID, Integer> byPlayer = new HashMap<>();
+    private Player[] players = new Player[16];
+    private double[] perPulse = new double[16];
+    private int[] pulsesLeft = new int[16];
+    private int[] rounds = new int[16];
+    private int[] next = new int[16];
+    private int size;
+    private int freeHead = -1;
+    private int active;
+    private long tick;
+    private PluginScheduler.Task task;
+
+    RegenEngine(PluginScheduler scheduler, int interval, Stacking stacking) {
+        this.scheduler = scheduler;
+        this.interval = Math.max(interval, 1);
+        this.stacking = stacking;
+        Arrays.fill(wheel, -1);
+    }
+
+    // 在seconds秒内共恢复amount点生命值 每interval tick结算一次
+    void apply(Player player, double amount, int seconds) {
+        int pulses = Math.max(Math.round(seconds * 20f / interval), 1);
+        if (stacking != Stacking.STACK) {
+            Integer existing = byPlayer.get(player.getUniqueId());
+            if (existing != null && pulsesLeft[existing] > 0) {
+                if (stacking == Stacking.EXTEND) {
+                    double remaining = perPulse[existing] * pulsesLeft[existing] + amount;
+                    pulsesLeft[existing] = Math.max(pulsesLeft[existing], pulses);
+                    perPulse[existing] = remaining / pulsesLeft[existing];
+                    return;
+                }
+                // 旧效果在其槽位下次结算时释放
+                pulsesLeft[existing] = 0;
+                active--;
+            }
+        }
+
+        int id = allocate();
+        players[id] = player;
+        perPulse[id] = amount / pulses;
+        pulsesLeft[id] = pulses;
+        schedule(id, interval);
+        active++;
+        if (stacking != Stacking.STACK) byPlayer.put(player.getUniqueId(), id);
+        if (task == null) task = scheduler.runGlobalTimer(this::tick, 1L, 1L);
+    }
+
+    int activeEffects() {
+        return active;
+    }
+
+    void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        Arrays.fill(wheel, -1);
+        Arrays.fill(players, null);
+        byPlayer.clear();
+        size = 0;
+        freeHead = -1;
+        active = 0;
+    }
+
+    private void tick() {
+        tick++;
+        int slot = (int) (tick & WHEEL_MASK);
+        int id = wheel[slot];
+        wheel[slot] = -1;
+        while (id >= 0) {
+            int following = next[id];
+            if (pulsesLeft[id] <= 0) {
+                release(id);
+            } else if (rounds[id] > 0) {
+                rounds[id]--;
+                push(slot, id);
+            } else {
+                pulse(id);
+            }
+            id = following;
+        }
+        if (active == 0 && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    // 全局区域线程只检查是否在线 死亡检查和恢复在玩家所在的线程进行
+    private void pulse(int id) {
+        Player player = players[id];
+        if (!player.isOnline()) {
+            active--;
+            release(id);
+            return;
+        }
+        double amount = perPulse[id];
+        if (--pulsesLeft[id] > 0) {
+            schedule(id, interval);
+        } else {
+            active--;
+            release(id);
+        }
+        scheduler.execute(player, () -> {
+            if (!player.isOnline()) return;
+            if (player.isDead()) {
+                scheduler.executeGlobal(() -> cancel(id, player));
+                return;
+            }
+            HealthService.applyHeal(player, amount, HealthService.maxHealth(player));
+        }, null);
+    }
+
+    // 玩家死亡时结束效果 下标已被释放或复用给其他玩家时不处理 在槽位下次结算时释放
+    private void cancel(int id, Player player) {
+        if (players[id] != player || pulsesLeft[id] <= 0) return;
+        pulsesLeft[id] = 0;
+        active--;
+    }
+
+    private void schedule(int id, int delay) {
+        rounds[id] = (delay - 1) / WHEEL_SIZE;
+        push((int) ((tick + delay) & WHEEL_MASK), id);
+    }
+
+    private void push(int slot, int id) {
+        next[id] = wheel[slot];
+        wheel[slot] = id;
+    }
+
+    private int allocate() {
+        if (freeHead >= 0) {
+            int id = freeHead;
+            freeHead = next[id];
+            return id;
+        }
+        if (size == players.length) {
+            int capacity = size * 2;
+            players = Arrays.copyOf(players, capacity);
+            perPulse = Arrays.copyOf(perPulse, capacity);
+            pulsesLeft = Arrays.copyOf(pulsesLeft, capacity);
+            rounds = Arrays.copyOf(rounds, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        return size++;
+    }
+
+    private void release(int id) {
+        if (stacking != Stacking.STACK) byPlayer.remove(players[id].getUniqueId(), id);
+        players[id] = null;
+        pulsesLeft[id] = 0;
+        next[id] = freeHead;
+        freeHead = id;
+    }
+}
@@ -0,0 +1,164 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.Arrays;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+
+// 逐字符保存可见文本及其颜色/格式 用于在不生成§字符串的情况下比较lore与prefix
+// 样式编码: 低5位为格式(k l m n o) 其余位为颜色代码0-f的下标 16表示无颜色
+final class StyledLine {
+    static final int NO_STYLE = 16 << 5;
+    static final int NO_TRAILING = -1;
+
+    // 与§0-§f的顺序一致
+    private static final NamedTextColor[] COLORS = {
+        NamedTextColor.BLACK, NamedTextColor.DARK_BLUE, NamedTextColor.DARK_GREEN, NamedTextColor.DARK_AQUA,
+        NamedTextColor.DARK_RED, NamedTextColor.DARK_PURPLE, NamedTextColor.GOLD, NamedTextColor.GRAY,
+        NamedTextColor.DARK_GRAY, NamedTextColor.BLUE, NamedTextColor.GREEN, NamedTextColor.AQUA,
+        NamedTextColor.RED, NamedTextColor.LIGHT_PURPLE, NamedTextColor.YELLOW, NamedTextColor.WHITE
+    };
+    // 与§k-§o的顺序一致
+    private static final TextDecoration[] DECORATIONS = {
+        TextDecoration.OBFUSCATED, TextDecoration.BOLD, TextDecoration.STRIKETHROUGH, TextDecoration.UNDERLINED, TextDecoration.ITALIC
+    };
+
+    private char[] chars;
+    private int[] styles;
+    private int length;
+    private int trailingStyle = NO_TRAILING;
+
+    StyledLine(int capacity) {
+        this.chars = new char[Math.max(capacity, 16)];
+        this.styles = new int[chars.length];
+    }
+
+    // 解析已规范化的§格式prefix 末尾的颜色代码后没有文本时记为trailingStyle 要求数字前的文本使用该颜色
+    static StyledLine fromLegacy(String legacy) {
+        StyledLine line = new StyledLine(legacy.length());
+        int style = NO_STYLE;
+        boolean styleChanged = false;
+        for (int i = 0; i < legacy.length(); i++) {
+            char c = legacy.charAt(i);
+            if (c == '§' && i + 1 < legacy.length()) {
+                style = applyLegacyCode(style, Character.toLowerCase(legacy.charAt(++i)));
+                styleChanged = true;
+                continue;
+            }
+            line.append(c, style);
+            styleChanged = false;
+        }
+        line.trailingStyle = styleChanged ? style : NO_TRAILING;
+        return line;
+    }
+
+    private static int applyLegacyCode(int style, char code) {
+        int color = Character.digit(code, 16);
+        if (color >= 0) return color << 5;
+        if (code >= 'k' && code <= 'o') return style | 1 << (code - 'k');
+        if (code == 'r') return NO_STYLE;
+        return style;
+    }
+
+    // 复用缓冲区载入一条lore 只读取TextComponent的文本 不产生中间字符串
+    void load(Component component) {
+        length = 0;
+        trailingStyle = NO_TRAILING;
+        append(component, NO_STYLE);
+    }
+
+    private void append(Component component, int parentStyle) {
+        int style = inheritStyle(component, parentStyle);
+        if (component instanceof TextComponent text) {
+            String content = text.content();
+            for (int i = 0; i < content.length(); i++) {
+                append(content.charAt(i), style);
+            }
+        }
+        for (Component child : component.children()) {
+            append(child, style);
+        }
+    }
+
+    private static int inheritStyle(Component component, int parentStyle) {
+        int style = parentStyle;
+        TextColor color = component.color();
+        if (color != null) style = colorIndex(color) << 5 | style & 0x1F;
+        for (int i = 0; i < DECORATIONS.length; i++) {
+            TextDecoration.State state = component.decoration(DECORATIONS[i]);
+            if (state == TextDecoration.State.TRUE) {
+                style |= 1 << i;
+            } else if (state == TextDecoration.State.FALSE) {
+                style &= ~(1 << i);
+            }
+        }
+        return style;
+    }
+
+    // 与legacySection序列化一致 RGB颜色按最接近的颜色代码处理
+    private static int colorIndex(TextColor color) {
+        NamedTextColor named = color instanceof NamedTextColor n ? n : NamedTextColor.nearestTo(color);
+        for (int i = 0; i < COLORS.length; i++) {
+            if (COLORS[i] == named) return i;
+        }
+        return 16;
+    }
+
+    private void append(char c, int style) {
+        if (length == chars.length) {
+            chars = Arrays.copyOf(chars, length * 2);
+            styles = Arrays.copyOf(styles, length * 2);
+        }
+        chars[length] = c;
+        styles[length] = style;
+        length++;
+    }
+
+    int length() {
+        return length;
+    }
+
+    char charAt(int index) {
+        return chars[index];
+    }
+
+    int styleAt(int index) {
+        return styles[index];
+    }
+
+    int trailingStyle() {
+        return trailingStyle;
+    }
+
+    // 满足legacy字符串中紧跟prefix末尾颜色代码的条件: 颜色相同且格式只多不少
+    boolean continuesWith(int index, int trailing) {
+        if (trailing == NO_TRAILING) return true;
+        if (index >= length) return false;
+        int style = styles[index];
+        return (style >>> 5) == (trailing >>> 5) && (style & trailing & 0x1F) == (trailing & 0x1F);
+    }
+
+    // 从start开始查找第一个数字 格式与原正则 -?\d+(\.\d+)? 一致 没有数字时返回null
+    String numberFrom(int start) {
+        for (int i = start; i < length; i++) {
+            char c = chars[i];
+            boolean negative = c == '-' && i + 1 < length && isDigit(chars[i + 1]);
+            if (!negative && !isDigit(c)) continue;
+
+            int end = negative ? i + 1 : i;
+            while (end < length && isDigit(chars[end])) end++;
+            if (end + 1 < length && chars[end] == '.' && isDigit(chars[end + 1])) {
+                end += 2;
+                while (end < length && isDigit(chars[end])) end++;
+            }
+            return new String(chars, i, end - i);
+        }
+        return null;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+// give/set的批量目标选择器
+// @a 全部在线玩家
+// @w:<世界名> 指定世界中的玩家
+// @r:<半径> 执行者周围指定半径内的玩家(仅玩家/实体执行时可用 Folia下不可用)
+// @p:<权限节点> 拥有指定权限的玩家 可用于按权限组选择
+final class TargetSelector {
+    static final List<String> EXAMPLES = List.of("@a", "@w:", "@r:", "@p:");
+
+    private TargetSelector() {
+    }
+
+    static boolean isSelector(String input) {
+        return input.startsWith("@");
+    }
+
+    // 选择器格式无效时返回null
+    // regionThreaded为true(Folia)时不能在当前线程读取其他区域玩家的位置 @r视为无效
+    static List<Player> select(CommandSender sender, String selector, boolean regionThreaded) {
+        if (selector.equalsIgnoreCase("@a")) {
+            return new ArrayList<>(Bukkit.getOnlinePlayers());
+        }
+        if (selector.length() < 4 || selector.charAt(2) != ':') return null;
+
+        String argument = selector.substring(3);
+        return switch (Character.toLowerCase(selector.charAt(1))) {
+            case 'w' -> selectWorld(argument);
+            case 'r' -> regionThreaded ? null : selectRadius(sender, argument);
+            case 'p' -> selectPermission(argument);
+            default -> null;
+        };
+    }
+
+    private static List<Player> selectWorld(String worldName) {
+        World world = Bukkit.getWorld(worldName);
+        return world == null ? List.of() : new ArrayList<>(world.getPlayers());
+    }
+
+    private static List<Player> selectRadius(CommandSender sender, String radiusStr) {
+        if (!(sender instanceof Entity entity)) return null;
+        double radius;
+        try {
+            radius = Double.parseDouble(radiusStr);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (radius < 0) return null;
+
+        Location center = entity.getLocation();
+        double radiusSquared = radius * radius;
+        List<Player> targets = new ArrayList<>();
+        for (Player player : center.getWorld().getPlayers()) {
+            if (player.getLocation().distanceSquared(center) <= radiusSquared) targets.add(player);
+        }
+        return targets;
+    }
+
+    private static List<Player> selectPermission(String permission) {
+        List<Player> targets = new ArrayList<>();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            if (player.hasPermission(permission)) targets.add(player);
+        }
+        return targets;
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+// 将批量操作分摊到多个tick执行 每tick最多处理perTick个目标 避免单tick卡顿
+// 仅在全局区域线程使用(普通Paper上即主线程) 队列为空时自动停止定时任务
+// Folia下action不能直接访问目标玩家 需要自行转到玩家所在的线程
+final class TickSpreadExecutor {
+    private final PluginScheduler scheduler;
+    private final Deque<Batch<?>> batches = new ArrayDeque<>();
+    private final int perTick;
+    private PluginScheduler.Task task;
+
+    TickSpreadExecutor(PluginScheduler scheduler, int perTick) {
+        this.scheduler = scheduler;
+        this.perTick = Math.max(perTick, 1);
+    }
+
+    <T> void submit(List<T> targets, Consumer<T> action, Runnable onComplete) {
+        batches.add(new Batch<>(targets, action, onComplete));
+        if (task == null) {
+            // 提交当tick立即执行第一批
+            tick();
+            if (!batches.isEmpty()) task = scheduler.runGlobalTimer(this::tick, 1L, 1L);
+        }
+    }
+
+    void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        batches.clear();
+    }
+
+    private void tick() {
+        int budget = perTick;
+        while (budget > 0 && !batches.isEmpty()) {
+            Batch<?> batch = batches.peek();
+            budget -= batch.run(budget);
+            if (batch.remaining() == 0) {
+                batches.poll();
+                batch.onComplete.run();
+            }
+        }
+        if (batches.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private static final class Batch<T> {
+        private final List<T> targets;
+        private final Consumer<T> action;
+        private final Runnable onComplete;
+        private int next;
+
+        private Batch(List<T> targets, Consumer<T> action, Runnable onComplete) {
+            this.targets = targets;
+            this.action = action;
+            this.onComplete = onComplete;
+        }
+
+        private int run(int budget) {
+            int end = Math.min(targets.size(), next + budget);
+            int processed = end - next;
+            while (next < end) {
+                action.accept(targets.get(next++));
+            }
+            return processed;
+        }
+
+        private int remaining() {
+            return targets.size() - next;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.lonevep.playerHealth;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// 固定容量的无锁环形缓冲区 保存最近的调试跟踪记录 写满后覆盖最旧的记录
+final class TraceBuffer {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private final AtomicReferenceArray<Trace> entries;
+    private final AtomicLong cursor = new AtomicLong();
+    private final int mask;
+
+    TraceBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(requestedCapacity - 1, 1)) << 1;
+        this.entries = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    void add(String message) {
+        long sequence = cursor.getAndIncrement();
+        entries.set((int) (sequence & mask), new Trace(sequence, System.currentTimeMillis(), Thread.currentThread().getName(), message));
+    }
+
+    // 按时间顺序返回最近limit条记录 并发写入时已被覆盖的记录会被跳过
+    List<String> recent(int limit) {
+        long end = cursor.get();
+        long start = Math.max(0, end - Math.min(limit, entries.length()));
+        List<String> lines = new ArrayList<>();
+        for (long sequence = start; sequence < end; sequence++) {
+            Trace trace = entries.get((int) (sequence & mask));
+            if (trace == null || trace.sequence() != sequence) continue;
+            lines.add(TIME_FORMAT.format(Instant.ofEpochMilli(trace.time())) + " [" + trace.thread() + "] " + trace.message());
+        }
+        return lines;
+    }
+
+    void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, null);
+        }
+    }
+
+    int capacity() {
+        return entries.length();
+    }
+
+    private record Trace(long sequence, long time, String thread, String message) {}
+}
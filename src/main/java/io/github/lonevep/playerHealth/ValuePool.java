@@ -0,0 +1,88 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.random.RandomGenerator;
+
+// normal变量的预生成随机值 由ValuePoolRefiller的后台线程生成和格式化 占位符解析时直接取出
+// 单生产者多消费者的无锁环形缓冲区: 只有后台线程推进tail 取用方通过CAS推进head
+// 剩余数量低于refillBelow时唤醒后台线程补满 取空时返回null 由调用方在当前线程直接生成
+final class ValuePool {
+    static final int MAX_SIZE = 65536;
+
+    // text为按小数位数格式化后的结果 value为舍入后的数值
+    record Sample(String text, double value) {}
+
+    private final WeightedSampler sampler;
+    private final Sample[] ring;
+    private final int mask;
+    private final int refillBelow;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicBoolean refillRequested = new AtomicBoolean();
+    private volatile long tail;
+    private volatile Thread refiller;
+
+    // size向上取整为2的幂
+    ValuePool(WeightedSampler sampler, int size, int refillBelow) {
+        int capacity = Integer.highestOneBit(Math.min(Math.max(size, 2), MAX_SIZE) * 2 - 1);
+        this.sampler = sampler;
+        this.ring = new Sample[capacity];
+        this.mask = capacity - 1;
+        this.refillBelow = Math.min(Math.max(refillBelow, 1), capacity);
+    }
+
+    int capacity() {
+        return ring.length;
+    }
+
+    int refillBelow() {
+        return refillBelow;
+    }
+
+    int available() {
+        return (int) (tail - head.get());
+    }
+
+    // 任意线程调用
+    Sample poll() {
+        while (true) {
+            long h = head.get();
+            long t = tail;
+            if (h >= t) {
+                requestRefill();
+                return null;
+            }
+            // 先读取再推进head 推进之前后台线程不会覆盖该位置
+            Sample sample = ring[(int) h & mask];
+            if (head.compareAndSet(h, h + 1)) {
+                if (t - h - 1 < refillBelow) requestRefill();
+                return sample;
+            }
+        }
+    }
+
+    // 仅由后台线程调用 剩余数量低于refillBelow时补满 返回生成的数量
+    int refill(RandomGenerator random) {
+        refiller = Thread.currentThread();
+        refillRequested.set(false);
+        long t = tail;
+        int free = ring.length - (int) (t - head.get());
+        if (ring.length - free >= refillBelow) return 0;
+        for (int i = 0; i < free; i++) {
+            RandomNumber number = sampler.pick(random);
+            double value = WeightedSampler.sample(number, random);
+            ring[(int) t & mask] = new Sample(DecimalFormatter.format(value, number.decimals()), DecimalFormatter.round(value, number.decimals()));
+            // 逐个发布 补充期间取用方即可使用已生成的值
+            tail = ++t;
+        }
+        return free;
+    }
+
+    private void requestRefill() {
+        Thread thread = refiller;
+        if (thread != null && !refillRequested.get() && refillRequested.compareAndSet(false, true)) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// 为当前VariableRegistry中配置了pool-size的normal变量补充预生成的随机值
+// 取用方在剩余数量低于水位线时唤醒该线程 未被唤醒时每隔IDLE_NANOS检查一次(包括重载后的新变量)
+// 重载后旧registry的缓冲区不再补充 随旧registry一起被回收
+final class ValuePoolRefiller implements Runnable {
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final Supplier<VariableRegistry> registry;
+    private final RandomSource randomSource;
+    private final DebugLog debugLog;
+    private volatile boolean running;
+    private Thread thread;
+
+    ValuePoolRefiller(Supplier<VariableRegistry> registry, RandomSource randomSource, DebugLog debugLog) {
+        this.registry = registry;
+        this.randomSource = randomSource;
+        this.debugLog = debugLog;
+    }
+
+    void start() {
+        running = true;
+        thread = new Thread(this, "PlayerHealth-ValuePool");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        if (thread == null) return;
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                for (ValuePool pool : registry.get().valuePools()) {
+                    pool.refill(randomSource.current());
+                }
+            } catch (RuntimeException e) {
+                // 取用方会回退到直接生成 不影响占位符结果
+                debugLog.log(null, () -> "[随机值缓冲] 补充失败: " + e);
+            }
+            LockSupport.parkNanos(this, IDLE_NANOS);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package io.github.lonevep.playerHealth;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// variable.yml编译结果的二进制缓存 以YAML内容的SHA-256为键 内容未变化时跳过YAML解析和校验
+// 只保存通过校验的变量定义 expr变量保存原始表达式 读取后重新编译(不需要YAML)
+// 格式或版本不匹配、文件损坏时视为未命中 重新编译并覆盖
+final class VariableCache {
+    private static final int MAGIC = 0x50485643; // "PHVC"
+    // 变量定义或VariableMode变化时递增
+    private static final int VERSION = 2;
+    private static final int HASH_LENGTH = 32;
+
+    private final Path file;
+    private final DebugLog debugLog;
+
+    VariableCache(Path file, DebugLog debugLog) {
+        this.file = file;
+        this.debugLog = debugLog;
+    }
+
+    static byte[] hash(byte[] yaml) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(yaml);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 通过内存映射读取 未命中时返回null
+    VariableRegistry read(byte[] hash, VariableCompiler compiler) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 + HASH_LENGTH || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+            byte[] stored = new byte[HASH_LENGTH];
+            buffer.get(stored);
+            if (!Arrays.equals(stored, hash)) {
+                debugLog.log(null, "[变量缓存] variable.yml已变化，重新编译");
+                return null;
+            }
+            return decode(buffer, compiler);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // 文件损坏(如写入中途崩溃)时BufferUnderflowException等异常均按未命中处理
+            debugLog.log(null, () -> "[变量缓存] 读取编译缓存失败，重新编译: " + e);
+            return null;
+        }
+    }
+
+    // 先写入临时文件再替换 写入失败不影响本次加载
+    void write(byte[] hash, VariableRegistry registry) {
+        if (!registry.isEnabled()) return;
+        try {
+            byte[] data = encode(hash, registry);
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, data);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            debugLog.log(null, () -> "[变量缓存] 已写入编译缓存: " + registry.size() + " 个变量，" + data.length + " 字节");
+        } catch (IOException e) {
+            // Windows下仍被映射的旧文件无法替换 下次启动时重试
+            debugLog.log(null, () -> "[变量缓存] 写入编译缓存失败: " + e);
+        }
+    }
+
+    private static byte[] encode(byte[] hash, VariableRegistry registry) throws IOException {
+        List<VariableDefinition> definitions = new ArrayList<>();
+        for (String name : registry.names()) definitions.add(registry.get(name));
+        definitions.sort(Comparator.comparing(VariableDefinition::name));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + definitions.size() * 48);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.write(hash);
+        out.writeInt(definitions.size());
+        for (VariableDefinition definition : definitions) {
+            writeString(out, definition.name());
+            out.writeByte(definition.mode().ordinal());
+            switch (definition.mode()) {
+                case NORMAL, ROLL -> {
+                    out.writeInt(definition.numbers().size());
+                    for (RandomNumber number : definition.numbers()) {
+                        out.writeDouble(number.min());
+                        out.writeDouble(number.max());
+                        out.writeInt(number.decimals());
+                        out.writeDouble(number.weight());
+                    }
+                    ValuePool pool = definition.pool();
+                    out.writeInt(pool == null ? 0 : pool.capacity());
+                    out.writeInt(pool == null ? 0 : pool.refillBelow());
+                }
+                case ELITE, EQUIP -> {
+                    writeString(out, definition.prefix());
+                    out.writeInt(definition.prefixIndex());
+                    if (definition.mode() == VariableMode.EQUIP) {
+                        VariableDefinition.Aggregate aggregate = definition.aggregate();
+                        out.writeInt(aggregate.slots());
+                        out.writeByte(aggregate.combine().ordinal());
+                        out.writeInt(aggregate.index());
+                    }
+                }
+                case EXPR -> {
+                    writeString(out, definition.expression().source());
+                    out.writeInt(definition.expression().decimals());
+                }
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static VariableRegistry decode(ByteBuffer buffer, VariableCompiler compiler) {
+        int count = buffer.getInt();
+        Map<String, VariableDefinition> definitions = new HashMap<>(count * 2);
+        Map<Integer, String> prefixes = new HashMap<>();
+        List<VariableDefinition> equipVariables = new ArrayList<>();
+        Map<String, String> expressions = new LinkedHashMap<>();
+        Map<String, Integer> expressionDecimals = new HashMap<>();
+        VariableMode[] modes = VariableMode.values();
+        VariableDefinition.Combine[] combines = VariableDefinition.Combine.values();
+        for (int i = 0; i < count; i++) {
+            String name = readString(buffer);
+            VariableMode mode = modes[buffer.get()];
+            switch (mode) {
+                case NORMAL, ROLL -> {
+                    int size = buffer.getInt();
+                    List<RandomNumber> numbers = new ArrayList<>(size);
+                    for (int j = 0; j < size; j++) {
+                        numbers.add(new RandomNumber(buffer.getDouble(), buffer.getDouble(), buffer.getInt(), buffer.getDouble()));
+                    }
+                    int poolSize = buffer.getInt();
+                    int refillBelow = buffer.getInt();
+                    definitions.put(name, mode == VariableMode.NORMAL ?
+                        VariableDefinition.normal(name, numbers, poolSize, refillBelow) :
+                        VariableDefinition.roll(name, numbers, compiler.rollKeys(name)));
+                }
+                case ELITE, EQUIP -> {
+                    String prefix = readString(buffer);
+                    int prefixIndex = buffer.getInt();
+                    if (prefix != null) prefixes.put(prefixIndex, prefix);
+                    if (mode == VariableMode.ELITE) {
+                        definitions.put(name, VariableDefinition.elite(name, prefix, prefixIndex));
+                    } else {
+                        VariableDefinition definition = VariableDefinition.equip(name, prefix, prefixIndex,
+                            new VariableDefinition.Aggregate(buffer.getInt(), combines[buffer.get()], buffer.getInt()));
+                        definitions.put(name, definition);
+                        equipVariables.add(definition);
+                    }
+                }
+                case EXPR -> {
+                    expressions.put(name, readString(buffer));
+                    expressionDecimals.put(name, buffer.getInt());
+                }
+            }
+        }
+        if (buffer.hasRemaining()) throw new IllegalStateException("trailing data");
+
+        List<String> elitePrefixes = new ArrayList<>(prefixes.size());
+        for (int i = 0; i < prefixes.size(); i++) {
+            String prefix = prefixes.get(i);
+            if (prefix == null) throw new IllegalStateException("missing prefix " + i);
+            elitePrefixes.add(prefix);
+        }
+        equipVariables.sort(Comparator.comparingInt(definition -> definition.aggregate().index()));
+        for (int i = 0; i < equipVariables.size(); i++) {
+            if (equipVariables.get(i).aggregate().index() != i) throw new IllegalStateException("missing equip index " + i);
+        }
+        return compiler.assemble(definitions, elitePrefixes, equipVariables, expressions, expressionDecimals);
+    }
+
+    // 长度-1表示null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        if (length > buffer.remaining()) throw new BufferUnderflowException();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
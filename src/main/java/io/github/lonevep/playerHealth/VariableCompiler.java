@@ -0,0 +1,260 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.Plugin;
+
+// 校验variable.yml并编译为VariableRegistry 不依赖服务器状态 可在异步线程调用
+final class VariableCompiler {
+    private static final Pattern VALID_NAME = Pattern.compile("[a-zA-Z0-9_]+");
+    private static final Pattern NUMERIC_NAME = Pattern.compile("\\d+");
+
+    private final Plugin plugin;
+    private final DebugLog debugLog;
+
+    VariableCompiler(Plugin plugin, DebugLog debugLog) {
+        this.plugin = plugin;
+        this.debugLog = debugLog;
+    }
+
+    // 校验并编译variable.yml 占位符解析只读取编译结果
+    VariableRegistry compile(FileConfiguration variableConfig) {
+        if (variableConfig == null) return VariableRegistry.EMPTY;
+        
+        // 检查变量功能是否启用
+        if (!variableConfig.getBoolean("enable", true)) {
+            debugLog.log(null, "[变量校验] 变量功能已禁用，跳过校验");
+            return VariableRegistry.EMPTY;
+        }
+        
+        Set<String> names = new HashSet<>();
+        Map<String, VariableDefinition> definitions = new HashMap<>();
+        List<String> elitePrefixes = new ArrayList<>();
+        Map<String, String> expressions = new LinkedHashMap<>();
+        Map<String, Integer> expressionDecimals = new HashMap<>();
+        List<VariableDefinition> equipVariables = new ArrayList<>();
+        for (String varName : variableConfig.getKeys(false)) {
+            // 跳过enable配置项
+            if ("enable".equals(varName)) continue;
+            
+            if (!isValidVariableName(varName, names)) continue;
+            
+            if (!variableConfig.contains(varName + ".mode")) {
+                debugLog.log(null, () -> "变量 " + varName + " 未配置mode字段，当前配置: " + variableConfig.getConfigurationSection(varName) + "，请检查variable.yml配置");
+                continue;
+            }
+            
+            String mode = variableConfig.getString(varName + ".mode", "normal");
+            if (!isValidMode(mode, varName)) continue;
+            
+            VariableMode variableMode = VariableMode.fromConfig(mode);
+            if (variableMode == VariableMode.NORMAL || variableMode == VariableMode.ROLL) {
+                validateNormalVariable(variableConfig, varName);
+                List<RandomNumber> numbers = parseRandomNumbers(variableConfig.getStringList(varName + ".values"), varName);
+                definitions.put(varName, variableMode == VariableMode.NORMAL ?
+                    compileNormal(variableConfig, varName, numbers) :
+                    VariableDefinition.roll(varName, numbers, rollKeys(varName)));
+            } else if (variableMode == VariableMode.EXPR) {
+                String expression = variableConfig.getString(varName + ".expression");
+                if (expression == null || expression.trim().isEmpty()) {
+                    debugLog.log(null, () -> "变量 " + varName + " 未配置expression字段，请检查variable.yml配置");
+                    continue;
+                }
+                expressions.put(varName, expression);
+                expressionDecimals.put(varName, Math.max(variableConfig.getInt(varName + ".decimals", 2), 0));
+            } else if (variableMode == VariableMode.EQUIP) {
+                VariableDefinition.Aggregate aggregate = compileAggregate(variableConfig, varName, equipVariables.size());
+                if (aggregate == null) continue;
+                String prefix = compilePrefix(variableConfig.getString(varName + ".prefix"));
+                VariableDefinition definition = VariableDefinition.equip(varName, prefix, prefixIndex(prefix, elitePrefixes), aggregate);
+                definitions.put(varName, definition);
+                equipVariables.add(definition);
+            } else {
+                String prefix = compilePrefix(variableConfig.getString(varName + ".prefix"));
+                definitions.put(varName, VariableDefinition.elite(varName, prefix, prefixIndex(prefix, elitePrefixes)));
+            }
+        }
+        return assemble(definitions, elitePrefixes, equipVariables, expressions, expressionDecimals);
+    }
+
+    // 由已校验的变量定义生成VariableRegistry 也用于从编译缓存恢复
+    VariableRegistry assemble(Map<String, VariableDefinition> definitions, List<String> elitePrefixes, List<VariableDefinition> equipVariables,
+                              Map<String, String> expressions, Map<String, Integer> expressionDecimals) {
+        // expr变量可以引用其他模式的变量 在其他变量全部编译后再编译
+        if (!expressions.isEmpty()) {
+            new ExpressionCompiler(debugLog).compile(expressions, expressionDecimals, Set.copyOf(definitions.keySet()))
+                .forEach((varName, expression) -> definitions.put(varName, VariableDefinition.expr(varName, expression)));
+        }
+        debugLog.log(null, () -> "[变量校验] 已编译变量数量: " + definitions.size() + "，精英变量前缀数量: " + elitePrefixes.size());
+        return new VariableRegistry(true, definitions, new LorePrefixScanner(elitePrefixes), equipVariables);
+    }
+
+    // pool-size未配置或为0时不使用缓冲区 pool-refill默认为pool-size的1/4
+    private VariableDefinition compileNormal(FileConfiguration variableConfig, String varName, List<RandomNumber> numbers) {
+        int configured = variableConfig.getInt(varName + ".pool-size", 0);
+        int poolSize = configured;
+        if (configured < 0 || configured > ValuePool.MAX_SIZE) {
+            debugLog.log(null, () -> "变量 " + varName + " 的pool-size无效(允许0-" + ValuePool.MAX_SIZE + "): " + configured + "，请检查variable.yml配置");
+            poolSize = 0;
+        }
+        int refillBelow = variableConfig.getInt(varName + ".pool-refill", Math.max(poolSize / 4, 1));
+        return VariableDefinition.normal(varName, numbers, poolSize, refillBelow);
+    }
+
+    // 相同prefix的elite/equip变量共用同一个扫描结果 prefix无效时返回-1
+    private static int prefixIndex(String prefix, List<String> elitePrefixes) {
+        if (prefix == null) return -1;
+        int prefixIndex = elitePrefixes.indexOf(prefix);
+        if (prefixIndex < 0) {
+            prefixIndex = elitePrefixes.size();
+            elitePrefixes.add(prefix);
+        }
+        return prefixIndex;
+    }
+
+    // slots未配置时使用全部装备栏 aggregate默认为sum
+    private VariableDefinition.Aggregate compileAggregate(FileConfiguration variableConfig, String varName, int index) {
+        int slots = EquipmentLoreCache.ALL_SLOTS;
+        if (variableConfig.contains(varName + ".slots")) {
+            slots = 0;
+            for (String name : variableConfig.getStringList(varName + ".slots")) {
+                int bit = EquipmentLoreCache.slotBit(name);
+                if (bit == 0) {
+                    debugLog.log(null, () -> "变量 " + varName + " 的装备栏无效(仅允许hand/off_hand/head/chest/legs/feet): " + name + "，请检查variable.yml配置");
+                }
+                slots |= bit;
+            }
+            if (slots == 0) {
+                debugLog.log(null, () -> "变量 " + varName + " 没有有效的装备栏，请检查variable.yml配置");
+                return null;
+            }
+        }
+        
+        String combineName = variableConfig.getString(varName + ".aggregate", "sum");
+        VariableDefinition.Combine combine = VariableDefinition.Combine.fromConfig(combineName);
+        if (combine == null) {
+            debugLog.log(null, () -> "变量 " + varName + " 的aggregate字段无效(仅允许sum/max/min): " + combineName + "，请检查variable.yml配置");
+            return null;
+        }
+        return new VariableDefinition.Aggregate(slots, combine, index);
+    }
+
+    // NamespacedKey只允许小写字母 变量名统一转为小写
+    VariableDefinition.RollKeys rollKeys(String varName) {
+        String key = varName.toLowerCase(Locale.ROOT);
+        return new VariableDefinition.RollKeys(new NamespacedKey(plugin, "roll/" + key + "/value"), new NamespacedKey(plugin, "roll/" + key + "/decimals"));
+    }
+
+    private String compilePrefix(String prefix) {
+        if (prefix == null || prefix.isEmpty()) return null;
+        return LegacyComponentSerializer.legacySection().serialize(LegacyComponentSerializer.legacySection().deserialize(prefix));
+    }
+
+    private boolean isValidVariableName(String varName, Set<String> names) {
+        if (varName == null || varName.trim().isEmpty()) {
+            debugLog.log(null, () -> "变量名不能为空: " + varName + "，请检查variable.yml配置");
+            return false;
+        }
+        if (!VALID_NAME.matcher(varName).matches()) {
+            debugLog.log(null, () -> "变量名不能为特殊字符或空格: " + varName + "，请检查variable.yml配置");
+            return false;
+        }
+        if (NUMERIC_NAME.matcher(varName).matches()) {
+            debugLog.log(null, () -> "变量名不能为纯数字: " + varName + "，请检查variable.yml配置");
+            return false;
+        }
+        if (names.contains(varName)) {
+            debugLog.log(null, () -> "变量名重复: " + varName + "，请检查variable.yml配置");
+            return false;
+        }
+        names.add(varName);
+        return true;
+    }
+
+    private boolean isValidMode(String mode, String varName) {
+        if (VariableMode.fromConfig(mode) == null) {
+            debugLog.log(null, () -> "变量 " + varName + " 的mode字段无效(仅允许normal/elite/roll/expr/equip): " + mode + "，请检查variable.yml配置");
+            return false;
+        }
+        return true;
+    }
+
+    private void validateNormalVariable(FileConfiguration variableConfig, String varName) {
+        List<String> config = variableConfig.getStringList(varName + ".values");
+        double totalWeight = 0;
+
+        for (String line : config) {
+            if (line.startsWith("weight::")) {
+                try {
+                    totalWeight += Double.parseDouble(line.substring(8));
+                } catch (NumberFormatException e) {
+                    debugLog.log(null, () -> "变量 " + varName + " 权重格式错误: " + line + "，请检查variable.yml配置");
+                }
+            } else if (line.startsWith("number::")) {
+                validateNumberFormat(line, varName);
+            }
+        }
+        
+        if (Math.abs(totalWeight - 1.0) > 0.0001) {
+            double total = totalWeight;
+            debugLog.log(null, () -> "变量 " + varName + " 权重总和不是1.0, 当前: " + total + "，请检查variable.yml配置");
+        }
+    }
+
+    private void validateNumberFormat(String line, String varName) {
+        String[] parts = line.substring(8).split("_");
+        if (parts.length != 3) {
+            debugLog.log(null, () -> "变量 " + varName + " number格式错误: " + line + "，请检查variable.yml配置");
+            return;
+        }
+        try {
+            Double.parseDouble(parts[0]);
+            Double.parseDouble(parts[1]);
+            Integer.parseInt(parts[2]);
+        } catch (NumberFormatException e) {
+            debugLog.log(null, () -> "变量 " + varName + " number参数格式错误: " + line + "，请检查variable.yml配置");
+        }
+    }
+
+    private List<RandomNumber> parseRandomNumbers(List<String> config, String varName) {
+        List<RandomNumber> numbers = new ArrayList<>();
+        
+        for (int i = 0; i < config.size(); i++) {
+            String line = config.get(i);
+            if (line.startsWith("number::")) {
+                String[] parts = line.substring(8).split("_");
+                if (parts.length == 3) {
+                    try {
+                        double min = Double.parseDouble(parts[0]);
+                        double max = Double.parseDouble(parts[1]);
+                        int decimals = Integer.parseInt(parts[2]);
+                        double weight = 1.0;
+                        
+                        if (i + 1 < config.size() && config.get(i + 1).startsWith("weight::")) {
+                            weight = Double.parseDouble(config.get(i + 1).substring(8));
+                            i++;
+                        }
+                        
+                        numbers.add(new RandomNumber(min, max, decimals, weight));
+                    } catch (NumberFormatException e) {
+                        debugLog.log(null, () -> "[变量解析] 变量: " + varName + "，调用来源: normal，number/weight参数格式错误: " + line + "，请检查variable.yml配置");
+                    }
+                } else {
+                    debugLog.log(null, () -> "[变量解析] 变量: " + varName + "，调用来源: normal，number格式错误: " + line + "，请检查variable.yml配置");
+                }
+            }
+        }
+        
+        return numbers;
+    }
+}
@@ -0,0 +1,67 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.List;
+import org.bukkit.NamespacedKey;
+
+// 已编译的变量定义 重载前保持不变
+// prefixIndex为精英变量在LorePrefixScanner结果中的下标 其他模式为-1
+// rollKeys为roll模式写入物品PersistentDataContainer的键 其他模式为null
+// expression为expr模式编译后的求值树 其他模式为null
+// aggregate为equip模式参与合计的装备栏和合计方式 其他模式为null
+// pool为normal模式配置了pool-size时的预生成随机值缓冲区 其他情况为null
+record VariableDefinition(String name, VariableMode mode, List<RandomNumber> numbers, WeightedSampler sampler, String prefix, int prefixIndex, RollKeys rollKeys, Expression expression, Aggregate aggregate, ValuePool pool) {
+
+    VariableDefinition {
+        numbers = List.copyOf(numbers);
+    }
+
+    // poolSize为0时不使用缓冲区
+    static VariableDefinition normal(String name, List<RandomNumber> numbers, int poolSize, int refillBelow) {
+        WeightedSampler sampler = new WeightedSampler(numbers);
+        ValuePool pool = poolSize > 0 && !sampler.isEmpty() ? new ValuePool(sampler, poolSize, refillBelow) : null;
+        return new VariableDefinition(name, VariableMode.NORMAL, numbers, sampler, null, -1, null, null, null, pool);
+    }
+
+    static VariableDefinition elite(String name, String prefix, int prefixIndex) {
+        return new VariableDefinition(name, VariableMode.ELITE, List.of(), null, prefix, prefixIndex, null, null, null, null);
+    }
+
+    static VariableDefinition roll(String name, List<RandomNumber> numbers, RollKeys rollKeys) {
+        return new VariableDefinition(name, VariableMode.ROLL, numbers, new WeightedSampler(numbers), null, -1, rollKeys, null, null, null);
+    }
+
+    static VariableDefinition expr(String name, Expression expression) {
+        return new VariableDefinition(name, VariableMode.EXPR, List.of(), null, null, -1, null, expression, null, null);
+    }
+
+    static VariableDefinition equip(String name, String prefix, int prefixIndex, Aggregate aggregate) {
+        return new VariableDefinition(name, VariableMode.EQUIP, List.of(), null, prefix, prefixIndex, null, null, aggregate, null);
+    }
+
+    record RollKeys(NamespacedKey value, NamespacedKey decimals) {}
+
+    // slots为EquipmentLoreCache.SLOTS下标的位掩码 index为该变量在合计结果中的下标
+    record Aggregate(int slots, Combine combine, int index) {}
+
+    enum Combine {
+        SUM,
+        MAX,
+        MIN;
+
+        double apply(double a, double b) {
+            return switch (this) {
+                case SUM -> a + b;
+                case MAX -> Math.max(a, b);
+                case MIN -> Math.min(a, b);
+            };
+        }
+
+        // 对应variable.yml中的aggregate字段 无效时返回null
+        static Combine fromConfig(String value) {
+            for (Combine combine : values()) {
+                if (combine.name().equalsIgnoreCase(value)) return combine;
+            }
+            return null;
+        }
+    }
+}
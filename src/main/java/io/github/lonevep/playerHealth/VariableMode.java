@@ -0,0 +1,21 @@
+package io.github.lonevep.playerHealth;
+
+enum VariableMode {
+    NORMAL,
+    ELITE,
+    // 物品生成时由rollItem随机一次并写入物品PersistentDataContainer 解析时只读取
+    ROLL,
+    // 由其他变量和玩家属性计算的表达式 加载时编译为Expression
+    EXPR,
+    // 与elite相同的前缀匹配 对多个装备栏的结果求和/最大值/最小值
+    EQUIP;
+
+    // 对应variable.yml中的mode字段 无效时返回null
+    static VariableMode fromConfig(String mode) {
+        if (mode == null) return null;
+        for (VariableMode value : values()) {
+            if (value.name().equalsIgnoreCase(mode)) return value;
+        }
+        return null;
+    }
+}
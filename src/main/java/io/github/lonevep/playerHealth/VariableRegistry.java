@@ -0,0 +1,69 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.bukkit.attribute.Attribute;
+
+// variable.yml编译后的只读快照 重载时整体替换
+// equipVariables按Aggregate.index排列 valuePools为配置了pool-size的normal变量的缓冲区
+// expressionAttributes为所有expr变量读取的玩家属性
+final class VariableRegistry {
+    static final VariableRegistry EMPTY = new VariableRegistry(false, Map.of(), LorePrefixScanner.EMPTY, List.of());
+
+    private final boolean enabled;
+    private final Map<String, VariableDefinition> definitions;
+    private final LorePrefixScanner eliteScanner;
+    private final List<VariableDefinition> equipVariables;
+    private final List<ValuePool> valuePools;
+    private final Set<Attribute> expressionAttributes;
+
+    VariableRegistry(boolean enabled, Map<String, VariableDefinition> definitions, LorePrefixScanner eliteScanner, List<VariableDefinition> equipVariables) {
+        this.enabled = enabled;
+        this.definitions = Map.copyOf(definitions);
+        this.eliteScanner = eliteScanner;
+        this.equipVariables = List.copyOf(equipVariables);
+        List<ValuePool> pools = new ArrayList<>();
+        Set<Attribute> attributes = new HashSet<>();
+        for (VariableDefinition definition : definitions.values()) {
+            if (definition.pool() != null) pools.add(definition.pool());
+            if (definition.expression() != null) attributes.addAll(definition.expression().attributes());
+        }
+        this.valuePools = List.copyOf(pools);
+        this.expressionAttributes = Set.copyOf(attributes);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    VariableDefinition get(String name) {
+        return definitions.get(name);
+    }
+
+    LorePrefixScanner eliteScanner() {
+        return eliteScanner;
+    }
+
+    List<VariableDefinition> equipVariables() {
+        return equipVariables;
+    }
+
+    List<ValuePool> valuePools() {
+        return valuePools;
+    }
+
+    Set<Attribute> expressionAttributes() {
+        return expressionAttributes;
+    }
+
+    Set<String> names() {
+        return definitions.keySet();
+    }
+
+    int size() {
+        return definitions.size();
+    }
+}
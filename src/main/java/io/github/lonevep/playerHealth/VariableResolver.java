@@ -0,0 +1,365 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+// 占位符解析的热路径 只读取已编译的VariableRegistry
+// ownsPlayer判断当前线程能否访问玩家背包 不能访问时使用玩家所在线程发布的快照
+final class VariableResolver {
+    private final DebugLog debugLog;
+    private final Metrics metrics;
+    private final EliteLoreCache eliteCache;
+    private final EquipmentLoreCache equipCache;
+    private final PlayerStateCache stateCache = new PlayerStateCache();
+    private final RandomSource randomSource;
+    private final Supplier<VariableRegistry> registry;
+    private final Predicate<Player> ownsPlayer;
+
+    VariableResolver(DebugLog debugLog, Metrics metrics, EliteLoreCache eliteCache, EquipmentLoreCache equipCache, RandomSource randomSource, Supplier<VariableRegistry> registry, Predicate<Player> ownsPlayer) {
+        this.debugLog = debugLog;
+        this.metrics = metrics;
+        this.eliteCache = eliteCache;
+        this.equipCache = equipCache;
+        this.randomSource = randomSource;
+        this.registry = registry;
+        this.ownsPlayer = ownsPlayer;
+    }
+
+    // 解析和统计使用同一次查找的结果 重载期间也不会把变量记错
+    String resolve(Player player, String varName) {
+        VariableRegistry registry = this.registry.get();
+        VariableDefinition definition = registry.get(varName);
+        if (!metrics.isEnabled()) return resolveVariable(player, varName, registry, definition);
+        long start = System.nanoTime();
+        String result = resolveVariable(player, varName, registry, definition);
+        long elapsed = System.nanoTime() - start;
+        metrics.recordVariable(varName, definition != null, elapsed, "0".equals(result));
+        return result;
+    }
+
+    private String resolveVariable(Player player, String varName, VariableRegistry registry, VariableDefinition definition) {
+        debugLog.log(player, () -> "[变量DEBUG] getNumberVar入口: varName=" + varName + ", player=" + (player == null ? "null" : player.getName()));
+        
+        if (player == null) {
+            debugLog.log(null, () -> "[变量解析] 变量: " + varName + "，调用来源: PAPI/外部插件，Player为null，可能是动作插件未正确传递玩家对象。");
+            return "0";
+        }
+        
+        // 检查变量功能是否启用
+        if (!registry.isEnabled()) {
+            debugLog.log(player, () -> "[变量解析] 变量: " + varName + "，调用来源: 内部，变量功能已禁用");
+            return "0";
+        }
+        
+        if (definition == null) {
+            debugLog.log(player, () -> "[变量解析] 变量: " + varName + "，调用来源: 内部，变量未配置或未通过校验");
+            return "0";
+        }
+        
+        return switch (definition.mode()) {
+            case ELITE -> orZero(eliteNumber(player, definition, registry.eliteScanner()));
+            case ROLL -> orZero(rolledNumber(player, definition));
+            case EXPR -> processExprVariable(player, definition);
+            case EQUIP -> processEquipVariable(player, definition, registry);
+            default -> processNormalVariable(player, definition);
+        };
+    }
+
+    private static String orZero(String number) {
+        return number == null ? "0" : number;
+    }
+
+    // 供PlayerHealthService使用 normal/expr变量直接返回数值 不经过字符串格式化和解析
+    // elite/roll变量的结果本身为lore文本或物品中保存的值 只解析一次
+    double resolveValue(Player player, String varName, double fallback) {
+        if (player == null) return fallback;
+        VariableRegistry registry = this.registry.get();
+        VariableDefinition definition = registry.isEnabled() ? registry.get(varName) : null;
+        if (definition == null) {
+            debugLog.log(player, () -> "[变量解析] 变量: " + varName + "，调用来源: 服务接口，变量未配置、未通过校验或变量功能已禁用");
+            return fallback;
+        }
+        
+        double value = switch (definition.mode()) {
+            case NORMAL -> sampleValue(definition);
+            case EXPR -> DecimalFormatter.round(exprValue(player, definition), definition.expression().decimals());
+            case ELITE -> parseNumber(eliteNumber(player, definition, registry.eliteScanner()));
+            case ROLL -> parseNumber(rolledNumber(player, definition));
+            case EQUIP -> equipValue(player, definition, registry);
+        };
+        return Double.isNaN(value) ? fallback : value;
+    }
+
+    private double sampleValue(VariableDefinition definition) {
+        if (definition.sampler().isEmpty()) return Double.NaN;
+        ValuePool.Sample pooled = definition.pool() == null ? null : definition.pool().poll();
+        if (pooled != null) return pooled.value();
+        RandomGenerator random = randomSource.current();
+        RandomNumber num = definition.sampler().pick(random);
+        return DecimalFormatter.round(WeightedSampler.sample(num, random), num.decimals());
+    }
+
+    private static double parseNumber(String number) {
+        if (number == null) return Double.NaN;
+        try {
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    // 失败时返回null
+    private String rolledNumber(Player player, VariableDefinition definition) {
+        String varName = definition.name();
+        if (definition.sampler().isEmpty()) {
+            debugLog.log(player, () -> "[变量解析] 变量: " + varName + "，调用来源: roll，未找到有效number配置，Player: " + player.getName());
+            return null;
+        }
+        
+        // 解析只读取物品中已保存的结果 随机结果由rollItem在物品生成时写入
+        // 异步线程读取玩家所在线程保存的物品副本
+        ItemStack item = ownsPlayer.test(player) ? player.getInventory().getItemInMainHand() : eliteCache.heldItemSnapshot(player.getUniqueId());
+        if (item == null || item.getType().isAir()) {
+            debugLog.log(player, () -> "[变量解析] 变量: " + varName + "，调用来源: roll，玩家未持有物品，Player: " + player.getName());
+            return null;
+        }
+        
+        String stored = readRolledValue(item, definition);
+        if (stored == null) {
+            debugLog.log(player, () -> "[变量解析] 变量: " + varName + "，调用来源: roll，手持物品尚未生成随机结果(需由rollItem写入)，Player: " + player.getName());
+            return null;
+        }
+        debugLog.log(player, () -> "[变量DEBUG] getNumberVar出口: varName=" + varName + ", 物品已保存的返回值=" + stored);
+        return stored;
+    }
+
+    boolean rollItem(ItemStack item, String varName) {
+        VariableDefinition definition = registry.get().get(varName);
+        if (item == null || item.getType().isAir() || definition == null || definition.mode() != VariableMode.ROLL || definition.sampler().isEmpty()) {
+            return false;
+        }
+        if (readRolledValue(item, definition) == null) rollOnto(item, definition);
+        return true;
+    }
+
+    private String readRolledValue(ItemStack item, VariableDefinition definition) {
+        if (!item.hasItemMeta()) return null;
+        PersistentDataContainer container = item.getItemMeta().getPersistentDataContainer();
+        Double value = container.get(definition.rollKeys().value(), PersistentDataType.DOUBLE);
+        if (value == null) return null;
+        Byte decimals = container.get(definition.rollKeys().decimals(), PersistentDataType.BYTE);
+        return DecimalFormatter.format(value, decimals == null ? 0 : decimals);
+    }
+
+    private void rollOnto(ItemStack item, VariableDefinition definition) {
+        RandomGenerator random = randomSource.current();
+        RandomNumber num = definition.sampler().pick(random);
+        double value = WeightedSampler.sample(num, random);
+        item.editMeta(meta -> {
+            PersistentDataContainer container = meta.getPersistentDataContainer();
+            container.set(definition.rollKeys().value(), PersistentDataType.DOUBLE, value);
+            container.set(definition.rollKeys().decimals(), PersistentDataType.BYTE, (byte) num.decimals());
+        });
+    }
+
+    // 失败时返回null
+    private String eliteNumber(Player player, VariableDefinition definition, LorePrefixScanner scanner) {
+        String varName = definition.name();
+        if (definition.prefix() == null) {
+            debugLog.log(player, () -> "[变量解析] 变量: " + varName + "，调用来源: elite，prefix缺失或无效，当前配置: " + definition);
+            return null;
+        }
+        
+        String[] results;
+        if (ownsPlayer.test(player)) {
+            results = heldEliteResults(player, scanner);
+        } else {
+            // 异步线程不能访问玩家背包 使用主线程发布的手持物品快照
+            results = eliteCache.snapshot(player.getUniqueId(), scanner);
+            if (results == null) {
+                debugLog.log(player, () -> "[变量解析] 变量: " + varName + "，调用来源: elite(异步)，手持物品快照尚未生成，Player: " + player.getName());
+                return null;
+            }
+        }
+        
+        String num = results[definition.prefixIndex()];
+        if (num == null) {
+            debugLog.log(player, () -> "[变量解析] 变量: " + varName + "，调用来源: elite，未找到匹配前缀的lore行或前缀后没有数字: " + definition.prefix() + "，Player: " + player.getName());
+            return null;
+        }
+        debugLog.log(player, () -> "[变量解析] 变量: " + varName + "，调用来源: elite，物品lore前缀后数字读取成功: " + num + "，Player: " + player.getName());
+        debugLog.log(player, () -> "[变量DEBUG] getNumberVar出口: varName=" + varName + ", 返回值=" + num);
+        return num;
+    }
+
+    // 仅在玩家所在的线程调用 手持物品未变化时直接返回缓存的扫描结果
+    private String[] heldEliteResults(Player player, LorePrefixScanner scanner) {
+        ItemStack item = player.getInventory().getItemInMainHand();
+        EliteLoreCache.Entry cacheEntry = eliteCache.entry(player, item);
+        String[] results = cacheEntry.results(scanner);
+        if (results == null) {
+            results = scanItem(player, item, scanner);
+            cacheEntry.store(scanner, results);
+        } else {
+            debugLog.log(player, () -> "[变量解析] 调用来源: elite，手持物品未变化，使用缓存结果，Player: " + player.getName());
+        }
+        return results;
+    }
+
+    private String processEquipVariable(Player player, VariableDefinition definition, VariableRegistry registry) {
+        EquipmentLoreCache.Totals totals = equipTotals(player, registry);
+        int index = definition.aggregate().index();
+        if (totals == null || Double.isNaN(totals.values()[index])) {
+            debugLog.log(player, () -> "[变量解析] 变量: " + definition.name() + "，调用来源: equip，" + (totals == null ? "装备快照尚未生成" : "所有装备栏都没有匹配前缀的lore行: " + definition.prefix()) + "，Player: " + player.getName());
+            return "0";
+        }
+        String num = DecimalFormatter.format(totals.values()[index], totals.decimals()[index]);
+        debugLog.log(player, () -> "[变量DEBUG] getNumberVar出口: varName=" + definition.name() + ", 装备合计值=" + num);
+        return num;
+    }
+
+    private double equipValue(Player player, VariableDefinition definition, VariableRegistry registry) {
+        EquipmentLoreCache.Totals totals = equipTotals(player, registry);
+        return totals == null ? Double.NaN : totals.values()[definition.aggregate().index()];
+    }
+
+    // 异步线程读取主线程发布的合计值 重载后尚未刷新的旧合计值不再使用
+    private EquipmentLoreCache.Totals equipTotals(Player player, VariableRegistry registry) {
+        if (ownsPlayer.test(player)) {
+            return equipCache.totals(player, registry, item -> scanItem(player, item, registry.eliteScanner()));
+        }
+        EquipmentLoreCache.Totals totals = equipCache.published(player.getUniqueId());
+        return totals != null && totals.registry() == registry ? totals : null;
+    }
+
+    private String[] scanItem(Player player, ItemStack item, LorePrefixScanner scanner) {
+        long start = metrics.isEnabled() ? System.nanoTime() : 0L;
+        String[] results = scanEliteVariables(player, item, scanner);
+        if (metrics.isEnabled()) metrics.recordEliteScan(System.nanoTime() - start, item);
+        return results;
+    }
+
+    // 定时为异步查询过的玩家刷新手持物品快照和装备合计值 在各玩家所在的线程上读取背包
+    void refreshHeldItemSnapshots(PluginScheduler scheduler) {
+        Set<UUID> readers = eliteCache.asyncReaders();
+        Set<UUID> equipReaders = equipCache.asyncReaders();
+        Set<UUID> stateReaders = stateCache.asyncReaders();
+        if (readers.isEmpty() && equipReaders.isEmpty() && stateReaders.isEmpty()) return;
+        
+        VariableRegistry current = registry.get();
+        LorePrefixScanner scanner = current.eliteScanner();
+        for (UUID id : readers) {
+            Player player = Bukkit.getPlayer(id);
+            if (player == null) {
+                eliteCache.invalidate(id);
+                continue;
+            }
+            scheduler.execute(player, () -> heldEliteResults(player, scanner), null);
+        }
+        for (UUID id : equipReaders) {
+            Player player = Bukkit.getPlayer(id);
+            if (player == null) {
+                equipCache.invalidate(id);
+                continue;
+            }
+            scheduler.execute(player, () -> equipCache.totals(player, current, item -> scanItem(player, item, scanner)), null);
+        }
+        for (UUID id : stateReaders) {
+            Player player = Bukkit.getPlayer(id);
+            if (player == null) {
+                stateCache.invalidate(id);
+                continue;
+            }
+            scheduler.execute(player, () -> stateCache.refresh(player, current.expressionAttributes()), null);
+        }
+    }
+
+    // 一次遍历lore取出所有精英变量的数值 结果按prefixIndex存放
+    String[] scanEliteVariables(Player player, ItemStack item, LorePrefixScanner scanner) {
+        if (item.getType().isAir() || !item.hasItemMeta()) {
+            debugLog.log(player, () -> "[变量解析] 调用来源: elite，玩家未持有带有lore的物品，Player: " + player.getName());
+            return new String[scanner.prefixCount()];
+        }
+        
+        ItemMeta meta = item.getItemMeta();
+        if (!meta.hasLore()) {
+            debugLog.log(player, () -> "[变量解析] 调用来源: elite，物品没有lore，Player: " + player.getName());
+            return new String[scanner.prefixCount()];
+        }
+        
+        List<Component> loreComponents = meta.lore();
+        if (loreComponents == null || loreComponents.isEmpty()) {
+            debugLog.log(player, () -> "[变量解析] 调用来源: elite，物品lore为空，Player: " + player.getName());
+            return new String[scanner.prefixCount()];
+        }
+        
+        return scanner.scan(loreComponents);
+    }
+
+    private String processExprVariable(Player player, VariableDefinition definition) {
+        double value = exprValue(player, definition);
+        if (Double.isNaN(value)) return "0";
+        debugLog.log(player, () -> "[变量DEBUG] getNumberVar出口: varName=" + definition.name() + ", 表达式计算结果=" + value);
+        return DecimalFormatter.format(value, definition.expression().decimals());
+    }
+
+    // 引用的变量直接按数值解析 结果不是有效数字时返回NaN
+    // 异步线程读取玩家所在线程保存的生命值和属性快照 首次查询时尚无快照 返回NaN
+    private double exprValue(Player player, VariableDefinition definition) {
+        Expression expression = definition.expression();
+        PlayerStateCache.State state = null;
+        if (expression.readsPlayer() && !ownsPlayer.test(player)) {
+            state = stateCache.snapshot(player.getUniqueId());
+            if (state == null) {
+                debugLog.log(player, () -> "[变量解析] 变量: " + definition.name() + "，调用来源: expr，玩家状态快照尚未生成，Player: " + player.getName());
+                return Double.NaN;
+            }
+        }
+        double value = expression.evaluate(player, state, name -> resolveValue(player, name, 0.0));
+        if (!Double.isFinite(value)) {
+            debugLog.log(player, () -> "[变量解析] 变量: " + definition.name() + "，调用来源: expr，计算结果不是有效数字(可能除以0): " + value + "，Player: " + player.getName());
+            return Double.NaN;
+        }
+        return value;
+    }
+
+    private String processNormalVariable(Player player, VariableDefinition definition) {
+        if (definition.sampler().isEmpty()) {
+            debugLog.log(player, () -> "[变量解析] 变量: " + definition.name() + "，调用来源: normal，未找到有效number配置，Player: " + player.getName());
+            debugLog.log(player, () -> "[变量DEBUG] getNumberVar出口: varName=" + definition.name() + ", 返回值=0");
+            return "0";
+        }
+        
+        // 配置了pool-size时优先使用后台线程预生成的值 缓冲区取空时在当前线程生成
+        if (definition.pool() != null) {
+            ValuePool.Sample pooled = definition.pool().poll();
+            if (pooled != null) {
+                debugLog.log(player, () -> "[变量解析] 变量: " + definition.name() + "，调用来源: normal，使用预生成随机数: " + pooled.text() + "，Player: " + player.getName());
+                return pooled.text();
+            }
+            debugLog.log(player, () -> "[变量解析] 变量: " + definition.name() + "，调用来源: normal，预生成随机数已取空，直接生成，Player: " + player.getName());
+        }
+        return generateRandomValue(definition, player);
+    }
+
+    String generateRandomValue(VariableDefinition definition, Player player) {
+        String varName = definition.name();
+        RandomGenerator random = randomSource.current();
+        RandomNumber num = definition.sampler().pick(random);
+        double value = WeightedSampler.sample(num, random);
+        debugLog.log(player, () -> "[变量解析] 变量: " + varName + "，调用来源: normal，随机数生成: " + value + "，Player: " + player.getName());
+        debugLog.log(player, () -> "[变量DEBUG] getNumberVar出口: varName=" + varName + ", 返回值=" + value);
+        return DecimalFormatter.format(value, num.decimals());
+    }
+}
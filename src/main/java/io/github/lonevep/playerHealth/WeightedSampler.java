@@ -0,0 +1,63 @@
+package io.github.lonevep.playerHealth;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+// Vose别名表 加载时构建一次 每次抽取为常数时间
+final class WeightedSampler {
+    private final RandomNumber[] numbers;
+    private final double[] probability;
+    private final int[] alias;
+
+    WeightedSampler(List<RandomNumber> numbers) {
+        int n = numbers.size();
+        this.numbers = numbers.toArray(new RandomNumber[0]);
+        this.probability = new double[n];
+        this.alias = new int[n];
+        if (n == 0) return;
+
+        double total = 0;
+        for (RandomNumber number : numbers) {
+            total += Math.max(number.weight(), 0);
+        }
+
+        // 权重全部无效时按均匀分布处理
+        double[] scaled = new double[n];
+        for (int i = 0; i < n; i++) {
+            scaled[i] = total > 0 ? Math.max(numbers.get(i).weight(), 0) * n / total : 1.0;
+        }
+
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            (scaled[i] < 1.0 ? small : large).push(i);
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pop();
+            int more = large.pop();
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1.0;
+            (scaled[more] < 1.0 ? small : large).push(more);
+        }
+        // 浮点误差导致的剩余项概率视为1
+        while (!large.isEmpty()) probability[large.pop()] = 1.0;
+        while (!small.isEmpty()) probability[small.pop()] = 1.0;
+    }
+
+    boolean isEmpty() {
+        return numbers.length == 0;
+    }
+
+    RandomNumber pick(RandomGenerator random) {
+        if (numbers.length == 1) return numbers[0];
+        int i = random.nextInt(numbers.length);
+        return random.nextDouble() < probability[i] ? numbers[i] : numbers[alias[i]];
+    }
+
+    static double sample(RandomNumber number, RandomGenerator random) {
+        return number.min() + (random.nextDouble() * (number.max() - number.min()));
+    }
+}